@@ -0,0 +1,123 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Live quiz attempts, at most one per user and quiz, shared by any number of threads.
+// Attempts nobody has touched for a while are evicted by a background sweep, so students
+// who walk away do not pin memory forever. Every attempt also feeds its quiz's ItemStats;
+// those outlive the attempts, so evicted or finished attempts still count. Finishing an
+// attempt puts its score on the quiz's Leaderboard; the handed-in attempt stays here, so
+// its results can still be looked up, until it idles out or the user starts over.
+final class AttemptRegistry {
+
+    private final Map<String, QuizAttempt> attempts = new ConcurrentHashMap<>();
+    private final Map<String, ItemStats> stats = new ConcurrentHashMap<>(); // By quiz code
+    private final Map<String, Leaderboard> leaderboards = new ConcurrentHashMap<>(); // By quiz code
+
+    private static String key(String username, String quizCode) {
+        return quizCode + '\0' + username;
+    }
+
+    // Start over on 'quiz', dropping any attempt the user had on it. An unfinished one is
+    // taken back out of the item statistics; a handed-in one stays counted, as it is on the
+    // leaderboard. Checked under the entry's lock, so finish() cannot hand it in meanwhile.
+    QuizAttempt start(String username, QuizApp.Quiz quiz) {
+        QuizAttempt attempt = newAttempt(username, quiz);
+        attempts.compute(key(username, quiz.code), (k, old) -> {
+            if (old != null && !old.isHandedIn()) old.retract();
+            return attempt;
+        });
+        return attempt;
+    }
+
+    // The user's attempt on 'quiz', started if there is none. Touched inside compute(), so
+    // a concurrent evictIdle() cannot drop it between the lookup and the touch.
+    QuizAttempt getOrStart(String username, QuizApp.Quiz quiz) {
+        return attempts.compute(key(username, quiz.code), (k, attempt) -> {
+            if (attempt == null) attempt = newAttempt(username, quiz);
+            attempt.touch();
+            return attempt;
+        });
+    }
+
+    private QuizAttempt newAttempt(String username, QuizApp.Quiz quiz) {
+        ItemStats itemStats = statsFor(quiz);
+        itemStats.attempts.increment();
+        return new QuizAttempt(username, quiz, itemStats);
+    }
+
+    // Answer counts for 'quiz', created empty if nobody has started it yet
+    ItemStats statsFor(QuizApp.Quiz quiz) {
+        return stats.computeIfAbsent(quiz.code, code -> new ItemStats());
+    }
+
+    Leaderboard leaderboardFor(QuizApp.Quiz quiz) {
+        return leaderboards.computeIfAbsent(quiz.code, code -> new Leaderboard(quiz.questions.size()));
+    }
+
+    // Hand in 'attempt': its answers are frozen and its score goes on the leaderboard.
+    // Returns the rank, or 0 if it was already handed in or replaced.
+    int finish(QuizAttempt attempt) {
+        // Handed in under the entry's lock, so a concurrent start() cannot replace it halfway
+        boolean[] handedIn = new boolean[1];
+        attempts.computeIfPresent(key(attempt.username, attempt.quiz.code), (k, current) -> {
+            if (current == attempt && attempt.handIn()) {
+                attempt.touch(); // Idle time counts from the hand-in, so the results stay around
+                handedIn[0] = true;
+            }
+            return current;
+        });
+        if (!handedIn[0]) return 0;
+        return leaderboardFor(attempt.quiz).record(attempt.username, attempt.score());
+    }
+
+    // The user's attempt on the quiz, or null
+    QuizAttempt get(String username, String quizCode) {
+        return attempts.computeIfPresent(key(username, quizCode), (k, attempt) -> {
+            attempt.touch();
+            return attempt;
+        });
+    }
+
+    // Forget 'attempt' unless it was already replaced by a newer one
+    void remove(QuizAttempt attempt) {
+        attempts.remove(key(attempt.username, attempt.quiz.code), attempt);
+    }
+
+    int size() {
+        return attempts.size();
+    }
+
+    // Drop attempts idle for longer than 'maxIdle'; returns how many went
+    int evictIdle(long maxIdle, TimeUnit unit) {
+        long now = System.nanoTime();
+        long limit = unit.toNanos(maxIdle);
+        int evicted = 0;
+        for (Map.Entry<String, QuizAttempt> entry : attempts.entrySet()) {
+            if (entry.getValue().idleNanos(now) <= limit) continue;
+            // Checked again under the entry's lock, where getOrStart() and get() touch
+            boolean[] removed = new boolean[1];
+            attempts.computeIfPresent(entry.getKey(), (k, attempt) -> {
+                if (attempt.idleNanos(now) <= limit) return attempt;
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) evicted++;
+        }
+        return evicted;
+    }
+
+    // Sweep every quarter of 'maxIdle' (at least once a second) on a daemon thread
+    ScheduledExecutorService startEviction(long maxIdle, TimeUnit unit) {
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "attempt-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, unit.toMillis(maxIdle) / 4);
+        sweeper.scheduleWithFixedDelay(() -> evictIdle(maxIdle, unit), period, period, TimeUnit.MILLISECONDS);
+        return sweeper;
+    }
+}
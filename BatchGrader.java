@@ -0,0 +1,228 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Headless bulk grader for completed attempts, e.g. a whole exam exported from another
+// system or a re-grade after an answer key was fixed. Reads one attempt per line:
+//
+//   <username> TAB <quiz code> TAB <answers, one character per question: 0-3, or - if skipped>
+//
+// and writes, in input order:
+//
+//   <line> TAB <username> TAB <quiz code> TAB <score> TAB <questions>
+//
+// Every answer string is packed into longs, 2 bits per question plus a mask of answered
+// questions, and each quiz's answer key is packed the same way once. Grading an attempt is
+// then an XOR and a bit count per 32 questions, run over all attempts with a parallel
+// stream. Quizzes come from the quiz bank and the journal, read only.
+//
+// Usage: BatchGrader [--bank <file>] [--out <file>] <attempts-file|->
+final class BatchGrader {
+
+    // Parsed attempts as parallel primitive arrays; attempt i's words are
+    // packed[offset[i] .. offset[i] + 2 * words), answers first, then the answered mask
+    private int count;
+    private int[] lineOf = new int[1024];
+    private int[] quizOf = new int[1024];       // Index into quizzes, -1 if the line was rejected
+    private int[] offset = new int[1024];
+    private String[] userOf = new String[1024];
+    private long[] packed = new long[4096];
+    private int packedSize;
+    private final Map<Integer, String> errors = new HashMap<>(); // Attempt index -> reason
+
+    // Quizzes seen in the input, each with its packed answer key
+    private final QuizStore store;
+    private final Map<String, Integer> quizIndex = new HashMap<>();
+    private final List<QuizApp.Quiz> quizzes = new ArrayList<>();
+    private final List<long[]> keys = new ArrayList<>();
+
+    BatchGrader(QuizStore store) {
+        this.store = store;
+    }
+
+    private static int words(int questions) {
+        return (questions + 31) >>> 5;
+    }
+
+    // --- Parsing ---
+
+    void add(int line, String text) {
+        grow();
+        int i = count++;
+        lineOf[i] = line;
+        quizOf[i] = -1;
+        String[] fields = text.split("\t", -1);
+        if (fields.length != 3) {
+            errors.put(i, "Expected username, quiz code and answers separated by tabs");
+            return;
+        }
+        userOf[i] = fields[0];
+        int quiz = quizIndex(fields[1]);
+        if (quiz < 0) {
+            errors.put(i, "No quiz with code " + fields[1]);
+            return;
+        }
+        String answers = fields[2];
+        int questions = quizzes.get(quiz).questions.size();
+        if (answers.length() > questions) {
+            errors.put(i, answers.length() + " answers for " + questions + " questions");
+            return;
+        }
+        int words = words(questions);
+        if (packedSize + 2 * words > packed.length) packed = Arrays.copyOf(packed, Math.max(packed.length * 2, packedSize + 2 * words));
+        int start = packedSize;
+        for (int q = 0; q < answers.length(); q++) {
+            char c = answers.charAt(q);
+            if (c == '-') continue;
+            if (c < '0' || c > '3') {
+                Arrays.fill(packed, start, start + 2 * words, 0);
+                errors.put(i, "Bad answer '" + c + "' for question " + (q + 1));
+                return;
+            }
+            int shift = (q & 31) << 1;
+            packed[start + (q >>> 5)] |= (long) (c - '0') << shift;
+            packed[start + words + (q >>> 5)] |= 1L << shift;
+        }
+        offset[i] = start;
+        packedSize += 2 * words;
+        quizOf[i] = quiz;
+    }
+
+    private void grow() {
+        if (count < lineOf.length) return;
+        int size = lineOf.length * 2;
+        lineOf = Arrays.copyOf(lineOf, size);
+        quizOf = Arrays.copyOf(quizOf, size);
+        offset = Arrays.copyOf(offset, size);
+        userOf = Arrays.copyOf(userOf, size);
+    }
+
+    // Index of the quiz, packing its key the first time it is seen; -1 if unknown
+    private int quizIndex(String code) {
+        Integer index = quizIndex.get(code);
+        if (index != null) return index;
+        QuizApp.Quiz quiz = store.quiz(code);
+        if (quiz == null) return -1;
+        List<QuizApp.Question> questions = quiz.questions;
+        long[] key = new long[words(questions.size())];
+        for (int q = 0; q < questions.size(); q++) {
+            key[q >>> 5] |= (long) questions.get(q).correctOptionIndex << ((q & 31) << 1);
+        }
+        quizIndex.put(code, quizzes.size());
+        quizzes.add(quiz);
+        keys.add(key);
+        return quizzes.size() - 1;
+    }
+
+    // --- Grading ---
+
+    // Scores of all attempts, -1 for rejected lines
+    int[] gradeAll() {
+        int[] scores = new int[count];
+        IntStream.range(0, count).parallel().forEach(i -> scores[i] = quizOf[i] < 0 ? -1 : grade(i));
+        return scores;
+    }
+
+    private int grade(int i) {
+        long[] key = keys.get(quizOf[i]);
+        int words = key.length;
+        int start = offset[i];
+        int score = 0;
+        for (int w = 0; w < words; w++) {
+            long diff = packed[start + w] ^ key[w];
+            // Low bit of each 2-bit pair is set where the answer matches the key
+            long same = ~(diff | diff >>> 1) & packed[start + words + w];
+            score += Long.bitCount(same);
+        }
+        return score;
+    }
+
+    void write(Writer out, int[] scores) throws IOException {
+        StringBuilder sb = new StringBuilder(64);
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            sb.append(lineOf[i]).append('\t');
+            if (quizOf[i] < 0) {
+                sb.append("ERROR\t").append(errors.get(i));
+            } else {
+                QuizApp.Quiz quiz = quizzes.get(quizOf[i]);
+                sb.append(userOf[i]).append('\t').append(quiz.code).append('\t')
+                        .append(scores[i]).append('\t').append(quiz.questions.size());
+            }
+            out.append(sb).append('\n');
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    int errorCount() {
+        return errors.size();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path bankFile = QuizBank.defaultFile();
+        String outFile = null;
+        String inFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--bank": bankFile = Paths.get(args[++i]); break;
+                case "--out": outFile = args[++i]; break;
+                default: inFile = args[i];
+            }
+        }
+        if (inFile == null) {
+            System.err.println("Usage: BatchGrader [--bank <file>] [--out <file>] <attempts-file|->");
+            System.exit(2);
+        }
+
+        QuizStore store = new QuizStore();
+        if (Files.exists(bankFile)) QuizBank.open(bankFile).addTo(store.quizMap());
+        QuizJournal.load(QuizJournal.defaultDirectory(), store.quizMap(), store.userMap());
+
+        BatchGrader grader = new BatchGrader(store);
+        long start = System.nanoTime();
+        try (BufferedReader in = inFile.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(inFile))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                grader.add(lineNumber, line);
+            }
+        }
+        long parsed = System.nanoTime();
+        int[] scores = grader.gradeAll();
+        long graded = System.nanoTime();
+        try (Writer out = new BufferedWriter(outFile == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(outFile)), 1 << 16)) {
+            grader.write(out, scores);
+        }
+        long written = System.nanoTime();
+
+        int good = grader.count() - grader.errorCount();
+        double gradeSeconds = Math.max(1, graded - parsed) / 1e9;
+        System.err.printf("Graded %d attempts (%d rejected) against %d quizzes on %d threads%n",
+                good, grader.errorCount(), grader.quizzes.size(), Runtime.getRuntime().availableProcessors());
+        System.err.printf("Parse %.0f ms, grade %.1f ms (%.0f attempts/s), write %.0f ms, total %.2f s%n",
+                (parsed - start) / 1e6, (graded - parsed) / 1e6, good / gradeSeconds,
+                (written - graded) / 1e6, (written - start) / 1e9);
+    }
+}
@@ -0,0 +1,225 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.IntConsumer;
+
+// Paints a TileGrid as one component instead of one JButton per cell.
+// Clicks are mapped to cells with arithmetic, paintComponent only draws the tiles that
+// intersect the clip, and a move repaints just the two cells it changed, so a 100x100
+// board costs the same per move as a 4x4 one. One tile at a time can be drawn part-way
+// through a slide; MoveAnimator sets that up and decides when to repaint.
+class BoardView extends JComponent {
+
+    private static final int GAP = 2; // Pixels between tiles
+    private static final int MIN_LABEL_SIZE = 12; // Tiles smaller than this are drawn without numbers
+
+    private TileGrid grid;
+    private IntConsumer cellClickListener;
+    private boolean locked; // Solved boards are drawn greyed out and ignore clicks
+    private int highlightCell = -1;
+    private int slideCell = -1; // Tile drawn between slideFromCell and its real cell
+    private int slideFromCell;
+    private float slideProgress;
+
+    // Layout cache, recomputed whenever the size or the grid changes
+    private int tileSize;
+    private int originX;
+    private int originY;
+    private int fontTileSize = -1;
+    private Font tileFont;
+    private Color[] tilePalette; // Per-tile colours for boards too small to label, built lazily
+
+    BoardView(TileGrid grid) {
+        this.grid = grid;
+        setOpaque(true);
+        setBackground(UIManager.getColor("Panel.background"));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10)); // Add padding
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0 && !locked && cellClickListener != null) {
+                    cellClickListener.accept(cell);
+                }
+            }
+        });
+    }
+
+    void setGrid(TileGrid grid) {
+        this.grid = grid;
+        highlightCell = -1;
+        slideCell = -1;
+        locked = false;
+        fontTileSize = -1;
+        tilePalette = null;
+        revalidate();
+        repaint();
+    }
+
+    void setCellClickListener(IntConsumer listener) {
+        this.cellClickListener = listener;
+    }
+
+    void setLocked(boolean locked) {
+        if (this.locked != locked) {
+            this.locked = locked;
+            tilePalette = null;
+            repaint();
+        }
+    }
+
+    void setHighlightCell(int cell) {
+        int previous = highlightCell;
+        highlightCell = cell;
+        if (previous >= 0) repaintCell(previous);
+        if (cell >= 0) repaintCell(cell);
+    }
+
+    int gridSize() {
+        return grid.size();
+    }
+
+    // Draw the tile now at 'cell' as if it were 'progress' (0..1) of the way from
+    // 'fromCell'. Only repaints when asked to, so the caller can batch.
+    void setSlide(int cell, int fromCell, float progress) {
+        slideCell = cell;
+        slideFromCell = fromCell;
+        slideProgress = progress;
+    }
+
+    void clearSlide() {
+        slideCell = -1;
+    }
+
+    // Dirty-rectangle repaint of a single tile
+    void repaintCell(int cell) {
+        int size = grid.size();
+        repaintCells(cell / size, cell % size, cell / size, cell % size);
+    }
+
+    // One dirty-rectangle repaint covering a block of rows and columns
+    void repaintCells(int minRow, int minCol, int maxRow, int maxCol) {
+        updateLayout();
+        repaint(originX + minCol * tileSize, originY + minRow * tileSize,
+                (maxCol - minCol + 1) * tileSize, (maxRow - minRow + 1) * tileSize);
+    }
+
+    // Cell under a point, or -1 outside the board
+    int cellAt(int x, int y) {
+        updateLayout();
+        if (tileSize <= 0 || x < originX || y < originY) return -1;
+        int col = (x - originX) / tileSize;
+        int row = (y - originY) / tileSize;
+        int size = grid.size();
+        if (col >= size || row >= size) return -1;
+        return row * size + col;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets insets = getInsets();
+        int side = Math.max(360, grid.size() * 6); // Large boards get at least ~6 px per tile
+        return new Dimension(side + insets.left + insets.right, side + insets.top + insets.bottom);
+    }
+
+    private void updateLayout() {
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right;
+        int height = getHeight() - insets.top - insets.bottom;
+        int size = grid.size();
+        tileSize = Math.max(0, Math.min(width, height) / size);
+        originX = insets.left + (width - tileSize * size) / 2;
+        originY = insets.top + (height - tileSize * size) / 2;
+        if (tileSize != fontTileSize) {
+            fontTileSize = tileSize;
+            int digits = String.valueOf(grid.cellCount() - 1).length();
+            int fontSize = Math.min(24, Math.max(8, (tileSize - 2 * GAP) * 2 / (digits + 1)));
+            tileFont = new Font("Arial", Font.BOLD, fontSize);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        updateLayout();
+        if (tileSize <= 0) return;
+        int size = grid.size();
+
+        // Only visit the rows/columns that intersect the clip
+        int firstCol = Math.max(0, (clip.x - originX) / tileSize);
+        int firstRow = Math.max(0, (clip.y - originY) / tileSize);
+        int lastCol = Math.min(size - 1, (clip.x + clip.width - originX) / tileSize);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height - originY) / tileSize);
+
+        Color tileColor = UIManager.getColor("Button.background");
+        if (tileColor == null) tileColor = Color.WHITE; // Fallback color
+        Color textColor = locked ? Color.GRAY : Color.BLACK;
+        boolean drawLabels = tileSize >= MIN_LABEL_SIZE;
+        if (drawLabels) g.setFont(tileFont);
+        FontMetrics metrics = g.getFontMetrics();
+        if (g instanceof Graphics2D) {
+            ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+
+        int gap = tileSize >= MIN_LABEL_SIZE ? GAP : (tileSize >= 4 ? 1 : 0);
+        Color[] palette = drawLabels ? null : palette();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int cell = row * size + col;
+                int tile = grid.tileAt(cell);
+                int x = originX + col * tileSize;
+                int y = originY + row * tileSize;
+                if (tile == 0 || cell == slideCell) {
+                    g.setColor(Color.LIGHT_GRAY);
+                    g.fillRect(x + gap, y + gap, tileSize - 2 * gap, tileSize - 2 * gap);
+                    continue;
+                }
+                paintTile(g, cell, tile, x, y, gap, palette != null ? palette[tile] : tileColor, textColor, drawLabels, metrics);
+            }
+        }
+
+        // The sliding tile goes on top of the cells it is passing over
+        if (slideCell >= 0 && grid.tileAt(slideCell) != 0) {
+            int tile = grid.tileAt(slideCell);
+            float back = 1 - slideProgress;
+            int x = originX + Math.round(((slideCell % size) + back * (slideFromCell % size - slideCell % size)) * tileSize);
+            int y = originY + Math.round(((slideCell / size) + back * (slideFromCell / size - slideCell / size)) * tileSize);
+            paintTile(g, slideCell, tile, x, y, gap, palette != null ? palette[tile] : tileColor, textColor, drawLabels, metrics);
+        }
+    }
+
+    private void paintTile(Graphics g, int cell, int tile, int x, int y, int gap, Color color, Color textColor,
+                           boolean drawLabels, FontMetrics metrics) {
+        g.setColor(cell == highlightCell ? Color.YELLOW : color);
+        g.fillRect(x + gap, y + gap, tileSize - 2 * gap, tileSize - 2 * gap);
+        if (drawLabels) {
+            g.setColor(Color.GRAY);
+            g.drawRect(x + gap, y + gap, tileSize - 2 * gap - 1, tileSize - 2 * gap - 1);
+            String label = String.valueOf(tile);
+            g.setColor(textColor);
+            g.drawString(label, x + (tileSize - metrics.stringWidth(label)) / 2,
+                    y + (tileSize - metrics.getHeight()) / 2 + metrics.getAscent());
+        }
+    }
+
+    // Unlabelled tiles are coloured by their home position (hue by row, saturation by
+    // column), so a large board still reads like a picture that is being reassembled
+    private Color[] palette() {
+        if (tilePalette == null) {
+            int size = grid.size();
+            tilePalette = new Color[grid.cellCount()];
+            for (int tile = 1; tile < tilePalette.length; tile++) {
+                int home = tile - 1;
+                tilePalette[tile] = Color.getHSBColor(0.8f * (home / size) / size,
+                        0.25f + 0.6f * (home % size) / size, locked ? 0.7f : 0.95f);
+            }
+        }
+        return tilePalette;
+    }
+}
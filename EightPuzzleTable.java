@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// Exact optimal distances for every solvable 3x3 board, so hints and solves on that size
+// are table lookups instead of searches.
+//
+// A board is indexed by a perfect hash: blank cell * 8!/2 + (Lehmer rank of the tile
+// order, blank skipped) / 2. On an odd-width board only the tile order's parity decides
+// solvability, and Lehmer ranks 2k and 2k+1 differ by swapping the last two tiles, so
+// exactly one of each pair is solvable and the 9!/2 states fill the table with no gaps.
+// The table is built by one breadth-first sweep from the goal and cached on disk.
+final class EightPuzzleTable {
+
+    static final int SIZE = 3;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int ORDERS = 20160; // 8!/2 solvable tile orders per blank cell
+    static final int STATES = CELLS * ORDERS; // 9!/2 = 181440
+    private static final int MAGIC = 0x45505431; // "EPT1"
+    private static final int[] FACTORIAL = {1, 1, 2, 6, 24, 120, 720, 5040};
+
+    private final byte[] distances;
+
+    private EightPuzzleTable(byte[] distances) {
+        this.distances = distances;
+    }
+
+    // Optimal number of moves to solve a 3x3 grid
+    int distance(TileGrid grid) {
+        return distances[rank(cellsOf(grid))];
+    }
+
+    // An optimal solution as blank directions: from each board step to the neighbour
+    // that is one move closer, so this is O(moves) lookups
+    int[] solve(TileGrid grid) {
+        int[] cells = cellsOf(grid);
+        int blank = indexOf(cells, 0);
+        int remaining = distances[rank(cells)];
+        int[] moves = new int[remaining];
+        for (int step = 0; step < moves.length; step++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int target = neighbour(blank, dir);
+                if (target < 0) continue;
+                swap(cells, blank, target);
+                if (distances[rank(cells)] == remaining - 1) {
+                    moves[step] = dir;
+                    blank = target;
+                    remaining--;
+                    break;
+                }
+                swap(cells, blank, target);
+            }
+        }
+        return moves;
+    }
+
+    // Number of boards at each distance from the goal
+    int[] histogram() {
+        int max = 0;
+        for (byte d : distances) max = Math.max(max, d);
+        int[] counts = new int[max + 1];
+        for (byte d : distances) counts[d]++;
+        return counts;
+    }
+
+    // Perfect hash of a solvable board; throws for the unsolvable half
+    static int rank(int[] cells) {
+        int blank = -1;
+        int order = 0;
+        int inversions = 0;
+        int seen = 0; // Bit per tile already placed
+        int position = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int tile = cells[cell];
+            if (tile == 0) {
+                blank = cell;
+                continue;
+            }
+            int digit = tile - 1 - Integer.bitCount(seen & ((1 << tile) - 1));
+            order += digit * FACTORIAL[CELLS - 2 - position++];
+            inversions += digit;
+            seen |= 1 << tile;
+        }
+        if ((inversions & 1) != 0) throw new IllegalArgumentException("Board is not solvable: " + Arrays.toString(cells));
+        return blank * ORDERS + (order >>> 1);
+    }
+
+    private static int[] cellsOf(TileGrid grid) {
+        if (grid.size() != SIZE) throw new IllegalArgumentException("Only 3x3 grids have an exact table");
+        int[] cells = new int[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) cells[cell] = grid.tileAt(cell);
+        return cells;
+    }
+
+    // Cell the blank reaches by moving in 'dir', or -1 off the board
+    private static int neighbour(int blank, int dir) {
+        switch (dir) {
+            case PuzzleBoard.UP: return blank >= SIZE ? blank - SIZE : -1;
+            case PuzzleBoard.DOWN: return blank < CELLS - SIZE ? blank + SIZE : -1;
+            case PuzzleBoard.LEFT: return blank % SIZE != 0 ? blank - 1 : -1;
+            case PuzzleBoard.RIGHT: return blank % SIZE != SIZE - 1 ? blank + 1 : -1;
+            default: return -1;
+        }
+    }
+
+    private static void swap(int[] cells, int a, int b) {
+        int tile = cells[a];
+        cells[a] = cells[b];
+        cells[b] = tile;
+    }
+
+    private static int indexOf(int[] cells, int tile) {
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == tile) return cell;
+        }
+        return -1;
+    }
+
+    // --- Loading ---
+
+    static EightPuzzleTable loadOrBuild(Path file) throws IOException {
+        if (Files.exists(file)) {
+            byte[] data = Files.readAllBytes(file);
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (data.length == 4 + STATES && buffer.getInt() == MAGIC) {
+                return new EightPuzzleTable(Arrays.copyOfRange(data, 4, data.length));
+            }
+        }
+        byte[] distances = build();
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "ept", ".tmp");
+        try {
+            ByteBuffer data = ByteBuffer.allocate(4 + STATES);
+            data.putInt(MAGIC).put(distances);
+            Files.write(tmp, data.array());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return new EightPuzzleTable(distances);
+    }
+
+    static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".numberpuzzle", "eight-puzzle.bin");
+    }
+
+    // Breadth-first sweep from the goal. Boards are queued packed 4 bits per cell, and the
+    // distance table doubles as the visited set.
+    static byte[] build() {
+        byte[] dist = new byte[STATES];
+        Arrays.fill(dist, (byte) -1);
+        long[] queue = new long[STATES];
+        int head = 0;
+        int tail = 0;
+
+        int[] cells = new int[CELLS];
+        for (int cell = 0; cell < CELLS - 1; cell++) cells[cell] = cell + 1;
+        dist[rank(cells)] = 0;
+        queue[tail++] = pack(cells);
+        while (head < tail) {
+            long state = queue[head++];
+            for (int cell = 0; cell < CELLS; cell++) cells[cell] = (int) (state >>> (4 * cell)) & 0xF;
+            int blank = indexOf(cells, 0);
+            int next = dist[rank(cells)] + 1;
+            for (int dir = 0; dir < 4; dir++) {
+                int target = neighbour(blank, dir);
+                if (target < 0) continue;
+                swap(cells, blank, target);
+                int r = rank(cells);
+                if (dist[r] == -1) {
+                    dist[r] = (byte) next;
+                    queue[tail++] = pack(cells);
+                }
+                swap(cells, blank, target);
+            }
+        }
+        if (tail != STATES) throw new IllegalStateException("Sweep reached " + tail + " of " + STATES + " boards");
+        return dist;
+    }
+
+    private static long pack(int[] cells) {
+        long state = 0;
+        for (int cell = 0; cell < CELLS; cell++) state |= (long) cells[cell] << (4 * cell);
+        return state;
+    }
+
+    // Builds (or loads) the table and prints the distance distribution, which is the
+    // ground truth to check heuristics against
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        EightPuzzleTable table = loadOrBuild(args.length > 0 ? Paths.get(args[0]) : defaultFile());
+        System.out.printf("%d boards in %d ms%n", STATES, (System.nanoTime() - start) / 1_000_000);
+        int[] counts = table.histogram();
+        for (int d = 0; d < counts.length; d++) System.out.printf("%2d moves: %6d%n", d, counts[d]);
+    }
+}
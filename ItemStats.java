@@ -0,0 +1,60 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live answer counts for one quiz: how many attempts chose each option of each question.
+// Every recorded answer bumps a LongAdder, which spreads concurrent increments over
+// per-thread cells, so a whole class answering the same question at once does not
+// contend on one counter. Nothing here ever rescans attempts; a snapshot just sums the
+// adders, and may be a moment behind while answers are coming in.
+//
+// A question gets its four counters when it is first answered, so opening a large
+// banked quiz costs nothing until students actually answer it.
+final class ItemStats {
+
+    final LongAdder attempts = new LongAdder();
+    // Four counters per question, null until answered; replaced by a longer copy as
+    // higher questions get answered
+    private volatile AtomicReferenceArray<LongAdder[]> rows = new AtomicReferenceArray<>(0);
+
+    // An answer to 'question' changed from 'previous' to 'option' (either may be
+    // QuizAttempt.NO_ANSWER)
+    void recordAnswer(int question, int previous, int option) {
+        if (previous == option) return;
+        LongAdder[] row = rowFor(question);
+        if (previous >= 0) row[previous].decrement();
+        if (option >= 0) row[option].increment();
+    }
+
+    // Counts per question and option, [question * 4 + option], up to the highest question
+    // answered so far
+    long[] snapshot() {
+        AtomicReferenceArray<LongAdder[]> r = rows;
+        long[] snapshot = new long[r.length() * 4];
+        for (int q = 0; q < r.length(); q++) {
+            LongAdder[] row = r.get(q);
+            if (row == null) continue;
+            for (int option = 0; option < 4; option++) snapshot[q * 4 + option] = row[option].sum();
+        }
+        return snapshot;
+    }
+
+    private LongAdder[] rowFor(int question) {
+        AtomicReferenceArray<LongAdder[]> r = rows;
+        LongAdder[] row = question < r.length() ? r.get(question) : null;
+        if (row != null) return row;
+        synchronized (this) { // Rows are only created and copied under the lock, so none is lost
+            r = rows;
+            if (question >= r.length()) {
+                AtomicReferenceArray<LongAdder[]> grown = new AtomicReferenceArray<>(Math.max(question + 1, r.length() * 2));
+                for (int q = 0; q < r.length(); q++) grown.set(q, r.get(q));
+                rows = r = grown;
+            }
+            row = r.get(question);
+            if (row == null) {
+                row = new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+                r.set(question, row);
+            }
+            return row;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Finished results of one quiz: the best K in a min-heap (so a new result costs O(log K)
+// and memory stays the same however many students take the quiz) plus a histogram of all
+// scores, from which any score's exact rank is read without sorting anything. A Fenwick
+// tree over the histogram keeps both recording a result and ranking a score at
+// O(log questions).
+//
+// Every finished attempt counts, so a student who takes a quiz twice is in it twice.
+// Equal scores share a rank; in the top list the earlier result comes first.
+final class Leaderboard {
+
+    static final int TOP = 10;
+
+    static final class Entry {
+        final String username;
+        final int score;
+        final long order; // Finishing order, breaks ties
+
+        Entry(String username, int score, long order) {
+            this.username = username;
+            this.score = score;
+            this.order = order;
+        }
+    }
+
+    // Worst entry at the head: lowest score, then latest
+    private static final Comparator<Entry> WORST_FIRST =
+            Comparator.<Entry>comparingInt(e -> e.score).thenComparing(e -> -e.order);
+
+    private final PriorityQueue<Entry> top = new PriorityQueue<>(TOP + 1, WORST_FIRST);
+    private long[] histogram; // Results per score
+    private long[] tree; // Fenwick tree over histogram: tree[i] sums a power-of-two run ending at score i - 1
+    private long results;
+
+    Leaderboard(int questions) {
+        histogram = new long[questions + 1];
+        tree = new long[histogram.length + 1];
+    }
+
+    // Add a finished result; returns its rank
+    synchronized int record(String username, int score) {
+        if (score >= histogram.length) grow(score + 1); // Questions were added
+        histogram[score]++;
+        for (int i = score + 1; i < tree.length; i += i & -i) tree[i]++;
+        Entry entry = new Entry(username, score, results++);
+        if (top.size() < TOP) {
+            top.add(entry);
+        } else if (WORST_FIRST.compare(entry, top.peek()) > 0) {
+            top.poll();
+            top.add(entry);
+        }
+        return rankOf(score);
+    }
+
+    // 1 + the number of results with a higher score
+    synchronized int rankOf(int score) {
+        long atMost = 0; // Results scoring 0..score
+        for (int i = Math.min(score + 1, tree.length - 1); i > 0; i -= i & -i) atMost += tree[i];
+        return (int) Math.min(Integer.MAX_VALUE, results - atMost + 1);
+    }
+
+    // Make room for scores up to 'length' - 1, rebuilding the tree in O(length); only
+    // happens when questions are added to a quiz that already has results
+    private void grow(int length) {
+        histogram = Arrays.copyOf(histogram, length);
+        tree = new long[length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += histogram[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length) tree[parent] += tree[i];
+        }
+    }
+
+    synchronized long results() {
+        return results;
+    }
+
+    // Best results first
+    synchronized List<Entry> top() {
+        List<Entry> list = new ArrayList<>(top);
+        list.sort(WORST_FIRST.reversed());
+        return list;
+    }
+
+    // Number of results per score, index = score
+    synchronized long[] histogram() {
+        return histogram.clone();
+    }
+}
@@ -0,0 +1,189 @@
+import javax.swing.Timer;
+import java.util.function.BooleanSupplier;
+
+// Drives every on-screen tile slide from one shared javax.swing.Timer.
+//
+// The model is always updated straight away; this class only decides what the screen
+// shows and when. Moves are announced with slide(), which puts them in a small ring
+// buffer, and a replay is a step function that is called at a given rate. Each frame
+// applies the replay steps that are due, animates the oldest pending slide, and issues a
+// single repaint covering every cell touched since the last frame.
+//
+// When moves come in faster than frames (a backlog of slides, or more than one replay
+// step due per frame), turbo mode skips the in-between frames: the due steps are all
+// applied and the board jumps straight to the result. Without turbo a replay runs at
+// most one move per frame so every slide is seen.
+final class MoveAnimator {
+
+    private static final int FRAME_MILLIS = 16; // ~60 frames per second
+    private static final long FRAME_BUDGET_NANOS = 10_000_000; // Keep the EDT responsive
+    private static final long MAX_SLIDE_NANOS = 150_000_000;
+    private static final int RING_SIZE = 64; // Must be a power of two
+
+    private final BoardView view;
+    private final Timer timer;
+    private Runnable frameListener; // Called once per frame that changed anything
+
+    // Pending slides as tile-from/tile-to cell pairs
+    private final int[] ringFrom = new int[RING_SIZE];
+    private final int[] ringTo = new int[RING_SIZE];
+    private int ringHead;
+    private int ringCount;
+    private long slideElapsed; // Time spent on the slide at ringHead
+
+    // Replay state
+    private BooleanSupplier replayStep; // Applies one move; false once there are none left
+    private Runnable replayDone;
+    private double movesPerSecond = 5;
+    private double movesOwed;
+    private boolean turbo;
+
+    private long lastFrame;
+    // Cells touched since the last repaint, as a row/column bounding box
+    private int dirtyMinRow = Integer.MAX_VALUE;
+    private int dirtyMinCol = Integer.MAX_VALUE;
+    private int dirtyMaxRow = -1;
+    private int dirtyMaxCol = -1;
+
+    MoveAnimator(BoardView view) {
+        this.view = view;
+        this.timer = new Timer(FRAME_MILLIS, e -> frame());
+        timer.setCoalesce(true); // A slow frame never leaves a backlog of ticks behind
+    }
+
+    void setFrameListener(Runnable listener) {
+        this.frameListener = listener;
+    }
+
+    void setMovesPerSecond(double movesPerSecond) {
+        this.movesPerSecond = Math.max(0.1, movesPerSecond);
+    }
+
+    void setTurbo(boolean turbo) {
+        this.turbo = turbo;
+    }
+
+    boolean isReplaying() {
+        return replayStep != null;
+    }
+
+    // A tile was just moved in the model from one cell to another
+    void slide(int fromCell, int toCell) {
+        markDirty(fromCell);
+        markDirty(toCell);
+        if (ringCount == RING_SIZE) dropOldestSlide(); // Far behind; just show the result
+        int slot = (ringHead + ringCount) & (RING_SIZE - 1);
+        ringFrom[slot] = fromCell;
+        ringTo[slot] = toCell;
+        ringCount++;
+        ensureRunning();
+    }
+
+    // Call 'step' movesPerSecond times a second until it returns false, then 'done'
+    void play(BooleanSupplier step, Runnable done) {
+        stopReplay();
+        replayStep = step;
+        replayDone = done;
+        movesOwed = 1; // First move right away
+        ensureRunning();
+    }
+
+    // Stops the replay without calling its 'done'; slides already shown finish normally
+    void stopReplay() {
+        replayStep = null;
+        replayDone = null;
+    }
+
+    // Forget pending slides and draw the board as it is, e.g. after a new deal
+    void reset() {
+        stopReplay();
+        ringCount = 0;
+        slideElapsed = 0;
+        view.clearSlide();
+        clearDirty();
+        timer.stop();
+    }
+
+    private void ensureRunning() {
+        if (!timer.isRunning()) {
+            lastFrame = System.nanoTime();
+            timer.start();
+        }
+    }
+
+    private void frame() {
+        long now = System.nanoTime();
+        long elapsed = now - lastFrame;
+        lastFrame = now;
+        boolean changed = dirtyMaxRow >= 0;
+
+        if (replayStep != null) {
+            movesOwed += movesPerSecond * elapsed / 1e9;
+            int due = (int) movesOwed;
+            if (!turbo) due = Math.min(due, 1);
+            for (int i = 0; i < due; i++) {
+                if (!replayStep.getAsBoolean()) {
+                    Runnable done = replayDone;
+                    stopReplay();
+                    if (done != null) done.run();
+                    break;
+                }
+                changed = true;
+                if (System.nanoTime() - now > FRAME_BUDGET_NANOS) break; // Rest is dropped below
+            }
+            movesOwed -= Math.min(movesOwed, due);
+            if (movesOwed > 1) movesOwed = turbo ? 0 : 1; // Never let debt pile up
+        }
+
+        // Skip straight to the newest slide when there is a backlog
+        if (ringCount > 1 && (turbo || replayStep != null)) {
+            while (ringCount > 1) dropOldestSlide();
+        }
+        if (ringCount > 0) {
+            slideElapsed += elapsed;
+            long duration = Math.min(MAX_SLIDE_NANOS, (long) (1e9 / movesPerSecond));
+            if (ringCount > 1) duration /= ringCount; // Catch up with queued clicks
+            int from = ringFrom[ringHead];
+            int to = ringTo[ringHead];
+            if (slideElapsed >= duration) {
+                dropOldestSlide();
+                view.clearSlide();
+            } else {
+                view.setSlide(to, from, (float) slideElapsed / duration);
+            }
+            markDirty(from);
+            markDirty(to);
+            changed = true;
+        }
+
+        if (dirtyMaxRow >= 0) {
+            view.repaintCells(dirtyMinRow, dirtyMinCol, dirtyMaxRow, dirtyMaxCol);
+            clearDirty();
+        }
+        if (changed && frameListener != null) frameListener.run();
+        if (ringCount == 0 && replayStep == null) timer.stop();
+    }
+
+    private void dropOldestSlide() {
+        ringHead = (ringHead + 1) & (RING_SIZE - 1);
+        ringCount--;
+        slideElapsed = 0;
+    }
+
+    private void markDirty(int cell) {
+        int size = view.gridSize();
+        int row = cell / size;
+        int col = cell - row * size;
+        if (row < dirtyMinRow) dirtyMinRow = row;
+        if (row > dirtyMaxRow) dirtyMaxRow = row;
+        if (col < dirtyMinCol) dirtyMinCol = col;
+        if (col > dirtyMaxCol) dirtyMaxCol = col;
+    }
+
+    private void clearDirty() {
+        dirtyMinRow = Integer.MAX_VALUE;
+        dirtyMinCol = Integer.MAX_VALUE;
+        dirtyMaxRow = -1;
+        dirtyMaxCol = -1;
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Every move of a game, 2 bits each (the blank's direction), packed 32 to a long, plus
+// the board the game started from. A cursor separates moves that have been played from
+// moves that can be redone; recording a new move drops the redo tail. Moves queued for
+// replay are simply a redo tail, so replaying is redo() until it runs out.
+//
+// A million moves take 250 KB, and export/import write the packed words as they are.
+//
+// Binary form: "MVH1", grid size, start cells as shorts, move count, packed words.
+final class MoveHistory {
+
+    private static final int MAGIC = 0x4D564831; // "MVH1"
+    private static final int MOVES_PER_WORD = 32;
+
+    private final int gridSize;
+    private final int[] start;
+    private long[] words = new long[4];
+    private int size; // Moves recorded, including the redo tail
+    private int position; // Moves currently applied to the board
+
+    // Start recording from the grid's current layout
+    MoveHistory(TileGrid grid) {
+        this(grid.size(), grid.copyCells());
+    }
+
+    private MoveHistory(int gridSize, int[] start) {
+        this.gridSize = gridSize;
+        this.start = start;
+    }
+
+    int gridSize() {
+        return gridSize;
+    }
+
+    int[] startCells() {
+        return start.clone();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int position() {
+        return position;
+    }
+
+    boolean canUndo() {
+        return position > 0;
+    }
+
+    boolean canRedo() {
+        return position < size;
+    }
+
+    int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Move " + index + " of " + size);
+        return (int) (words[index / MOVES_PER_WORD] >>> (2 * (index % MOVES_PER_WORD))) & 3;
+    }
+
+    // A move the player just made; anything that could have been redone is dropped
+    void record(int dir) {
+        size = position;
+        append(dir);
+        position = size;
+    }
+
+    // Moves to be played next by redo(), replacing any existing redo tail
+    void queue(int[] moves) {
+        size = position;
+        for (int dir : moves) append(dir);
+    }
+
+    // Direction that undoes the last applied move, or NO_MOVE
+    int undo() {
+        if (position == 0) return PuzzleBoard.NO_MOVE;
+        return PuzzleBoard.OPPOSITE[get(--position)];
+    }
+
+    // Next move to re-apply, or NO_MOVE
+    int redo() {
+        if (position == size) return PuzzleBoard.NO_MOVE;
+        return get(position++);
+    }
+
+    private void append(int dir) {
+        int word = size / MOVES_PER_WORD;
+        if (word == words.length) words = Arrays.copyOf(words, words.length * 2);
+        int shift = 2 * (size % MOVES_PER_WORD);
+        words[word] = (words[word] & ~(3L << shift)) | ((long) dir << shift);
+        size++;
+    }
+
+    // --- Export / import ---
+
+    void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(gridSize);
+        for (int tile : start) out.writeShort(tile);
+        out.writeInt(size);
+        int wordCount = (size + MOVES_PER_WORD - 1) / MOVES_PER_WORD;
+        for (int i = 0; i < wordCount; i++) out.writeLong(words[i]);
+        out.flush();
+    }
+
+    // The imported history is rewound to its start, ready to be replayed with redo()
+    static MoveHistory readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) throw new IOException("Not a move history");
+        int gridSize = in.readInt();
+        if (gridSize < TileGrid.MIN_SIZE || gridSize > TileGrid.MAX_SIZE) {
+            throw new IOException("Bad grid size " + gridSize);
+        }
+        int[] start = new int[gridSize * gridSize];
+        for (int cell = 0; cell < start.length; cell++) start[cell] = in.readUnsignedShort();
+        MoveHistory history = new MoveHistory(gridSize, start);
+        int size = in.readInt();
+        if (size < 0) throw new IOException("Bad move count " + size);
+        int wordCount = (int) (((long) size + MOVES_PER_WORD - 1) / MOVES_PER_WORD);
+        // Grown as words arrive, so a count larger than the data ends in EOFException
+        // instead of a huge allocation
+        long[] words = new long[Math.max(4, Math.min(wordCount, 1 << 16))];
+        for (int i = 0; i < wordCount; i++) {
+            if (i == words.length) words = Arrays.copyOf(words, (int) Math.min(wordCount, 2L * words.length));
+            try {
+                words[i] = in.readLong();
+            } catch (EOFException e) {
+                throw new IOException(size + " moves announced but only " + (i * MOVES_PER_WORD) + " present");
+            }
+        }
+        history.words = words;
+        history.size = size;
+        return history;
+    }
+
+    String toBase64() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 2 * start.length + size / 4);
+        try {
+            writeTo(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen with an in-memory stream
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    static MoveHistory fromBase64(String text) throws IOException {
+        try {
+            return readFrom(new ByteArrayInputStream(Base64.getDecoder().decode(text.trim())));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not valid base64", e);
+        }
+    }
+}
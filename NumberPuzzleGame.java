@@ -1,33 +1,57 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.awt.datatransfer.StringSelection;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
-public class NumberPuzzleGame extends JFrame implements ActionListener {
+public class NumberPuzzleGame extends JFrame {
 
-    private static final int GRID_SIZE = 4; // 4x4 grid
-    private JPanel gridPanel;
-    private JButton[][] buttons = new JButton[GRID_SIZE][GRID_SIZE];
-    private JButton emptyButton; // Reference to the empty button
-    private Point emptyPos; // Position (row, col) of the empty button
+    private static final int DEFAULT_GRID_SIZE = 4; // 4x4 grid
+    private TileGrid board = new TileGrid(DEFAULT_GRID_SIZE); // Game state; the view only renders it
+    private long boardVersion; // Bumped on every change so stale solver results can be ignored
+    private final Random random = new Random();
+    private BoardView boardView;
     private JButton shuffleButton;
+    private JButton hintButton;
+    private JButton autoSolveButton;
+    private JButton undoButton;
+    private JButton redoButton;
+    private JSpinner sizeSpinner; // Board size, chosen at runtime
+    private JComboBox<String> difficultyBox; // "Random" or one of the generator's bands (4x4 only)
+    private JSpinner threadSpinner; // Solver threads; 1 = single-threaded IDA*
     private JLabel statusLabel;
-
-    // private List<Integer> initialTileOrder; // Stores the shuffled order for reset - Removed as shuffle logic changed
+    private JLabel distanceLabel; // Live misplaced-tile count and Manhattan distance
+
+    // --- Solver state ---
+    private volatile PatternDatabase patternDatabase; // null until mapped/built in the background
+    private volatile EightPuzzleTable eightPuzzleTable; // Exact 3x3 distances, null until loaded
+    private ParallelPuzzleSolver solver; // Rebuilt when the thread count or database changes
+    private PatternDatabase solverDatabase; // Database the current solver was built with
+    private SwingWorker<PuzzleSolver.Solution, Void> solveWorker;
+    private final SolverCache solverCache = new SolverCache(1 << 16); // Boards on solved 4x4 paths
+    private final PuzzleGenerator generator = new PuzzleGenerator(() -> patternDatabase, 3);
+    private MoveAnimator animator; // One timer for every slide and for replaying the redo tail
+    private MoveHistory history; // Every move since the board was dealt, 2 bits each
 
     public NumberPuzzleGame() {
         super("Number Puzzle Game");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(400, 450); // Adjusted size for status/shuffle
+        setSize(640, 680); // Adjusted size for status and the three control rows
         setLocationRelativeTo(null); // Center window
 
-        // Initialize gridPanel first
-        gridPanel = new JPanel(new GridLayout(GRID_SIZE, GRID_SIZE, 5, 5)); // Add gaps
-        gridPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10)); // Add padding
+        // One painted component for the whole board, however large
+        boardView = new BoardView(board);
+        boardView.setCellClickListener(this::cellClicked);
+        animator = new MoveAnimator(boardView);
+        animator.setFrameListener(this::refreshIndicators); // Labels change at most once a frame
 
         // --- Bottom Panel for Shuffle and Status ---
         // MOVED THIS SECTION UP to ensure statusLabel exists before shuffleTiles()
@@ -36,203 +60,423 @@ public class NumberPuzzleGame extends JFrame implements ActionListener {
 
         shuffleButton = new JButton("Shuffle / New Game");
         shuffleButton.addActionListener(e -> shuffleTiles()); // Lambda for shuffle
+        hintButton = new JButton("Hint");
+        hintButton.addActionListener(e -> showHint());
+        autoSolveButton = new JButton("Auto-solve");
+        autoSolveButton.addActionListener(e -> autoSolve());
+        undoButton = new JButton("Undo");
+        undoButton.addActionListener(e -> undo());
+        redoButton = new JButton("Redo");
+        redoButton.addActionListener(e -> redo());
+        JButton exportButton = new JButton("Export moves");
+        exportButton.addActionListener(e -> exportHistory());
+        JButton importButton = new JButton("Import moves");
+        importButton.addActionListener(e -> importHistory());
+        JSpinner speedSpinner = new JSpinner(new SpinnerNumberModel(5, 1, 100_000, 1));
+        speedSpinner.addChangeListener(e -> animator.setMovesPerSecond((Integer) speedSpinner.getValue()));
+        JCheckBox turboBox = new JCheckBox("Turbo");
+        turboBox.setToolTipText("Skip frames when replaying faster than the screen refreshes");
+        turboBox.addActionListener(e -> animator.setTurbo(turboBox.isSelected()));
+        sizeSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_GRID_SIZE, TileGrid.MIN_SIZE, TileGrid.MAX_SIZE, 1));
+        sizeSpinner.addChangeListener(e -> changeGridSize((Integer) sizeSpinner.getValue()));
+        difficultyBox = new JComboBox<>();
+        difficultyBox.addItem("Random");
+        for (PuzzleGenerator.Difficulty difficulty : PuzzleGenerator.Difficulty.values()) {
+            difficultyBox.addItem(difficulty.toString());
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        threadSpinner = new JSpinner(new SpinnerNumberModel(cores, 1, Math.max(cores, 64), 1));
 
         // *** Initialize statusLabel HERE, before shuffleTiles is called ***
         statusLabel = new JLabel("Click a tile next to the empty space to move it.", SwingConstants.CENTER);
-
-        bottomPanel.add(shuffleButton, BorderLayout.WEST);
-        bottomPanel.add(statusLabel, BorderLayout.CENTER);
-
-        // --- Initialize the grid buttons ---
-        initializeGrid(); // Now initializeGrid is called
+        distanceLabel = new JLabel();
+
+        JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        buttonRow.add(shuffleButton);
+        buttonRow.add(hintButton);
+        buttonRow.add(autoSolveButton);
+        buttonRow.add(distanceLabel);
+        JPanel historyRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        historyRow.add(undoButton);
+        historyRow.add(redoButton);
+        historyRow.add(exportButton);
+        historyRow.add(importButton);
+        historyRow.add(new JLabel("Replay moves/s:"));
+        historyRow.add(speedSpinner);
+        historyRow.add(turboBox);
+        JPanel buttonRows = new JPanel(new GridLayout(0, 1, 0, 5));
+        buttonRows.add(buttonRow);
+        buttonRows.add(historyRow);
+        JPanel optionsRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        optionsRow.add(new JLabel("Size:"));
+        optionsRow.add(sizeSpinner);
+        optionsRow.add(new JLabel("Difficulty:"));
+        optionsRow.add(difficultyBox);
+        optionsRow.add(new JLabel("Solver threads:"));
+        optionsRow.add(threadSpinner);
+        bottomPanel.add(buttonRows, BorderLayout.NORTH);
+        bottomPanel.add(optionsRow, BorderLayout.CENTER);
+        bottomPanel.add(statusLabel, BorderLayout.SOUTH);
 
         // --- Shuffle the tiles ---
         shuffleTiles(); // NOW shuffleTiles() is called, AFTER statusLabel exists
 
+        loadPatternDatabase(); // Solver falls back to Manhattan + linear conflicts until ready
+        generator.start(); // Keeps a few puzzles of every difficulty ready
+
         // --- Add Panels to Frame ---
-        add(gridPanel, BorderLayout.CENTER);
+        add(boardView, BorderLayout.CENTER);
         add(bottomPanel, BorderLayout.SOUTH); // Add bottom panel HERE
 
         setVisible(true);
     }
 
-    private void initializeGrid() {
-        Font buttonFont = new Font("Arial", Font.BOLD, 24);
-        int tileNumber = 1;
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (row == GRID_SIZE - 1 && col == GRID_SIZE - 1) {
-                    // Last button is empty
-                    buttons[row][col] = new JButton("");
-                    buttons[row][col].setEnabled(false); // Make it visually distinct and non-clickable
-                    buttons[row][col].setBackground(Color.LIGHT_GRAY); // Different background
-                    emptyButton = buttons[row][col];
-                    emptyPos = new Point(row, col);
-                } else {
-                    buttons[row][col] = new JButton(String.valueOf(tileNumber++));
-                    buttons[row][col].setFont(buttonFont);
-                    buttons[row][col].addActionListener(this);
-                    buttons[row][col].setFocusPainted(false); // Remove focus border
-                }
-                gridPanel.add(buttons[row][col]);
-            }
-        }
+    // Start a new game on a board of a different size
+    private void changeGridSize(int size) {
+        if (size == board.size()) return;
+        stopSolving();
+        board = new TileGrid(size);
+        boardView.setGrid(board);
+        difficultyBox.setEnabled(size == PuzzleBoard.SIZE); // The generator only makes 4x4 puzzles
+        shuffleTiles();
     }
 
-    // Shuffle by making random valid moves from the solved state
+    // Deal a pre-generated puzzle of the chosen difficulty, or a uniformly random
+    // solvable layout
     private void shuffleTiles() {
+        stopSolving();
+        boardVersion++;
         // Now statusLabel should not be null here
         statusLabel.setText("Click a tile next to the empty space to move it.");
         statusLabel.setForeground(Color.BLACK);
 
-        // Reset to solved state first
-        int num = 1;
-        for (int r = 0; r < GRID_SIZE; r++) {
-            for (int c = 0; c < GRID_SIZE; c++) {
-                boolean isEmpty = (r == GRID_SIZE - 1 && c == GRID_SIZE - 1);
-                // Make sure buttons[r][c] exists before accessing it
-                if (buttons[r][c] == null) continue; // Should not happen if initializeGrid runs first
-
-                buttons[r][c].setText(isEmpty ? "" : String.valueOf(num++));
-                buttons[r][c].setEnabled(!isEmpty);
-                // Set default background, avoid potential null UIManager value
-                Color defaultBg = UIManager.getColor("Button.background");
-                buttons[r][c].setBackground(isEmpty ? Color.LIGHT_GRAY : (defaultBg != null ? defaultBg : Color.WHITE)); // Fallback color
-                if(isEmpty){
-                    emptyButton = buttons[r][c];
-                    emptyPos = new Point(r, c);
-                }
+        PuzzleGenerator.Difficulty difficulty = selectedDifficulty();
+        PuzzleGenerator.Puzzle puzzle = difficulty == null ? null : generator.poll(difficulty);
+        if (puzzle != null) {
+            board.load(puzzle.tiles);
+            statusLabel.setText(difficulty.label + " puzzle: can be solved in " + puzzle.optimalMoves + " moves.");
+        } else {
+            board.shuffle(random);
+            if (difficulty != null) {
+                statusLabel.setText("No " + difficulty.label + " puzzle ready yet, dealt a random board.");
             }
         }
+        animator.reset();
+        boardView.setHighlightCell(-1);
+        boardView.setLocked(false);
+        boardView.repaint();
+        history = new MoveHistory(board);
+        refreshIndicators();
+        updateSolverButtons();
+    }
 
+    // null means "Random"
+    private PuzzleGenerator.Difficulty selectedDifficulty() {
+        int index = difficultyBox.getSelectedIndex();
+        if (index <= 0 || board.size() != PuzzleBoard.SIZE) return null;
+        return PuzzleGenerator.Difficulty.values()[index - 1];
+    }
 
-        // Make a large number of random valid moves
-        Random random = new Random();
-        int shuffles = GRID_SIZE * GRID_SIZE * 10; // Number of random moves
-        for (int i = 0; i < shuffles; i++) {
-            List<Point> neighbors = getValidNeighbors(emptyPos);
-            if (!neighbors.isEmpty()) {
-                Point randomNeighbor = neighbors.get(random.nextInt(neighbors.size()));
-                swapButtons(emptyPos, randomNeighbor);
-                emptyPos = randomNeighbor; // Update empty position
+    private void cellClicked(int clickedCell) {
+        // The model only moves the tile if it is adjacent to the empty spot
+        int emptyCell = board.blankCell();
+        int dir = board.directionTo(clickedCell);
+        if (dir != TileGrid.NO_MOVE && board.move(dir)) {
+            stopSolving(); // A manual move invalidates any solution being computed or replayed
+            history.record(dir);
+            afterMove(emptyCell, clickedCell);
+        }
+    }
+
+    // Hand the move to the animator (which repaints once per frame) and check for a win
+    private void afterMove(int oldEmptyCell, int newEmptyCell) {
+        boardVersion++;
+        boardView.setHighlightCell(-1);
+        animator.slide(newEmptyCell, oldEmptyCell); // The tile went where the blank was
+
+        if (board.isSolved()) {
+            statusLabel.setText("Congratulations! You solved it!");
+            statusLabel.setForeground(Color.GREEN.darker());
+            boardView.setLocked(true); // Greys out the tiles and ignores clicks
+        } else {
+            boardView.setLocked(false); // Undo can leave a solved board
+            if (!animator.isReplaying()) {
+                statusLabel.setText("Click a tile next to the empty space to move it.");
+                statusLabel.setForeground(Color.BLACK);
             }
         }
     }
 
-    // Get valid neighbors (up, down, left, right) of a position
-    private List<Point> getValidNeighbors(Point pos) {
-        List<Point> neighbors = new ArrayList<>();
-        int r = pos.x;
-        int c = pos.y;
-        int[] dr = {-1, 1, 0, 0}; // Row changes
-        int[] dc = {0, 0, -1, 1}; // Col changes
+    // --- Undo / redo / export ---
 
-        for (int i = 0; i < 4; i++) {
-            int nr = r + dr[i];
-            int nc = c + dc[i];
-            if (nr >= 0 && nr < GRID_SIZE && nc >= 0 && nc < GRID_SIZE) {
-                neighbors.add(new Point(nr, nc));
-            }
+    private void undo() {
+        stopSolving();
+        if (!applyHistoryMove(history.undo())) history.redo(); // Keep history and board in step
+    }
+
+    private void redo() {
+        stopSolving();
+        if (!applyHistoryMove(history.redo())) history.undo();
+    }
+
+    // False if 'dir' is not legal on the board; the caller puts the history cursor back
+    private boolean applyHistoryMove(int dir) {
+        if (dir == TileGrid.NO_MOVE) return true;
+        int oldEmptyCell = board.blankCell();
+        if (!board.move(dir)) {
+            statusLabel.setText("Recorded move does not fit the board.");
+            statusLabel.setForeground(Color.RED);
+            return false;
         }
-        return neighbors;
+        afterMove(oldEmptyCell, board.blankCell());
+        return true;
     }
 
-    // Find the position (Point) of a button in the grid
-    private Point findButtonPosition(JButton button) {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (buttons[row][col] == button) {
-                    return new Point(row, col);
-                }
+    private void updateHistoryButtons() {
+        undoButton.setEnabled(history.canUndo());
+        redoButton.setEnabled(history.canRedo());
+    }
+
+    // The whole game so far (start board plus every move) as base64 or a binary file
+    private void exportHistory() {
+        Object[] options = {"Copy as text", "Save to file...", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this, history.size() + " moves recorded.", "Export moves",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+        if (choice == 0) {
+            String text = history.toBase64();
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(text), null);
+            statusLabel.setText("Copied " + history.size() + " moves (" + text.length() + " characters) to the clipboard.");
+        } else if (choice == 1) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(chooser.getSelectedFile().toPath()))) {
+                history.writeTo(out);
+                statusLabel.setText("Saved " + history.size() + " moves.");
+            } catch (IOException ex) {
+                statusLabel.setText("Could not save moves: " + ex.getMessage());
+                statusLabel.setForeground(Color.RED);
             }
         }
-        return null; // Should not happen
     }
 
-    // Swap the text and appearance of two buttons
-    private void swapButtons(Point pos1, Point pos2) {
-        JButton button1 = buttons[pos1.x][pos1.y];
-        JButton button2 = buttons[pos2.x][pos2.y];
-
-        // Basic null checks before proceeding
-        if (button1 == null || button2 == null) {
-            System.err.println("Error: Attempting to swap null buttons.");
+    // Load an exported game and replay it from its start board
+    private void importHistory() {
+        Object[] options = {"Paste text...", "Open file...", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this, "Import a recorded game.", "Import moves",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+        MoveHistory imported;
+        try {
+            if (choice == 0) {
+                String text = JOptionPane.showInputDialog(this, "Paste the exported moves:");
+                if (text == null || text.isBlank()) return;
+                imported = MoveHistory.fromBase64(text);
+            } else if (choice == 1) {
+                JFileChooser chooser = new JFileChooser();
+                if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(chooser.getSelectedFile().toPath()))) {
+                    imported = MoveHistory.readFrom(in);
+                }
+            } else {
+                return;
+            }
+            // Replay on a scratch grid first, so a bad file never touches the real board
+            TileGrid check = new TileGrid(imported.gridSize());
+            check.load(imported.startCells());
+            // An unsolvable start would make the hint and solve buttons throw
+            if (!check.isSolvable()) throw new IllegalArgumentException("the start board is not solvable");
+            for (int i = 0; i < imported.size(); i++) {
+                if (!check.move(imported.get(i))) throw new IllegalArgumentException("move " + (i + 1) + " is not legal");
+            }
+            stopSolving();
+            TileGrid grid = new TileGrid(imported.gridSize());
+            grid.load(imported.startCells());
+            board = grid;
+        } catch (IOException | IllegalArgumentException ex) {
+            statusLabel.setText("Could not import moves: " + ex.getMessage());
+            statusLabel.setForeground(Color.RED);
             return;
         }
 
+        boardVersion++;
+        boardView.setGrid(board);
+        sizeSpinner.setValue(board.size()); // Listener sees the same size and does nothing
+        difficultyBox.setEnabled(board.size() == PuzzleBoard.SIZE);
+        history = imported;
+        animator.reset();
+        refreshIndicators();
+        updateSolverButtons();
+        statusLabel.setText("Replaying " + history.size() + " imported moves.");
+        statusLabel.setForeground(Color.BLACK);
+        startReplay();
+    }
 
-        String tempText = button1.getText();
-        button1.setText(button2.getText());
-        button2.setText(tempText);
+    // Both numbers are kept up to date by the board itself, so this is O(1) per frame
+    private void refreshIndicators() {
+        distanceLabel.setText("Misplaced: " + board.misplacedCount() + "  Distance: " + board.manhattanDistance());
+        updateHistoryButtons();
+    }
 
-        boolean button1Enabled = button1.isEnabled();
-        button1.setEnabled(button2.isEnabled());
-        button2.setEnabled(button1Enabled);
+    // --- Hint / Auto-solve ---
 
-        Color tempBg = button1.getBackground();
-        button1.setBackground(button2.getBackground());
-        button2.setBackground(tempBg);
+    // Highlight the tile whose move starts an optimal solution
+    private void showHint() {
+        solveInBackground(solution -> {
+            if (solution.length() == 0) {
+                statusLabel.setText("The puzzle is already solved.");
+                return;
+            }
+            int hintCell = board.blankCell() + board.offset(solution.moves[0]);
+            boardView.setHighlightCell(hintCell);
+            statusLabel.setText("Hint: move tile " + board.tileAt(hintCell) + " (" + solution.length() + " moves to go)");
+        });
+    }
 
-        // Update emptyButton reference if needed
-        if (button1 == emptyButton) emptyButton = button2;
-        else if (button2 == emptyButton) emptyButton = button1;
+    // Solve optimally, then replay the solution one move at a time
+    private void autoSolve() {
+        solveInBackground(solution -> {
+            history.queue(solution.moves); // Replayed as redo steps, so they can be undone
+            if (board.size() == EightPuzzleTable.SIZE) {
+                statusLabel.setText("Auto-solving: " + solution.length() + " moves (exact table)");
+            } else if (solution.nodes == 0) {
+                statusLabel.setText("Auto-solving: " + solution.length() + " moves (cached, "
+                        + solverCache.hits() + " cache hits / " + solverCache.misses() + " misses)");
+            } else {
+                statusLabel.setText("Auto-solving: " + solution.length() + " moves (" + solution.nodes + " nodes, "
+                        + solution.nanos / 1_000_000 + " ms, " + solver.threads() + " threads)");
+            }
+            startReplay();
+        });
     }
 
+    // Step through the redo tail at the chosen replay speed
+    private void startReplay() {
+        animator.play(this::replayStep, null);
+    }
 
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        JButton clickedButton = (JButton) e.getSource();
-        Point clickedPos = findButtonPosition(clickedButton);
+    private boolean replayStep() {
+        int dir = history.redo();
+        if (dir == TileGrid.NO_MOVE) return false;
+        if (!applyHistoryMove(dir)) {
+            history.undo();
+            return false;
+        }
+        return true;
+    }
 
-        if (clickedPos == null) return;
+    // Stops stepping; moves not replayed yet stay available to Redo
+    private void stopReplay() {
+        animator.stopReplay();
+    }
 
-        // Check if the clicked button is adjacent to the empty spot
-        int rDiff = Math.abs(clickedPos.x - emptyPos.x);
-        int cDiff = Math.abs(clickedPos.y - emptyPos.y);
+    // Run the solver off the EDT and hand the result back on the EDT, but only if the
+    // board has not changed in the meantime
+    private void solveInBackground(Consumer<PuzzleSolver.Solution> onSolved) {
+        stopSolving();
+        if (!isSolverAvailable()) return;
+        if (board.size() == EightPuzzleTable.SIZE) {
+            // Pure table lookups, cheap enough to do right here on the EDT
+            long start = System.nanoTime();
+            int[] moves = eightPuzzleTable.solve(board);
+            onSolved.accept(new PuzzleSolver.Solution(moves, moves.length, System.nanoTime() - start));
+            return;
+        }
+        final long start = board.packed();
+        long lookupStart = System.nanoTime();
+        int[] cached = solverCache.path(start);
+        if (cached != null) {
+            onSolved.accept(new PuzzleSolver.Solution(cached, 0, System.nanoTime() - lookupStart));
+            return;
+        }
+        final long version = boardVersion;
+        final ParallelPuzzleSolver currentSolver = solverForCurrentSettings();
+        final AtomicBoolean cancel = currentSolver.newSearch(); // Before the worker starts, so stopSolving() can reach it
+        setSolverButtonsEnabled(false);
+        statusLabel.setText("Solving...");
+        statusLabel.setForeground(Color.BLACK);
 
-        if ((rDiff == 1 && cDiff == 0) || (rDiff == 0 && cDiff == 1)) {
-            // It's adjacent, swap them
-            swapButtons(clickedPos, emptyPos);
-            emptyPos = clickedPos; // Update the empty position
+        solveWorker = new SwingWorker<PuzzleSolver.Solution, Void>() {
+            @Override
+            protected PuzzleSolver.Solution doInBackground() {
+                return currentSolver.solve(start, cancel);
+            }
 
-            // Check for win after the move
-            if (isSolved()) {
-                statusLabel.setText("Congratulations! You solved it!");
-                statusLabel.setForeground(Color.GREEN.darker());
-                // Disable all buttons except shuffle
-                for(int r=0; r<GRID_SIZE; r++){
-                    for(int c=0; c<GRID_SIZE; c++){
-                         // Make sure buttons[r][c] exists before accessing it
-                         if(buttons[r][c] != null && buttons[r][c] != emptyButton) {
-                             buttons[r][c].setEnabled(false);
-                         }
+            @Override
+            protected void done() {
+                if (solveWorker != this) return; // Superseded by a newer request
+                solveWorker = null;
+                setSolverButtonsEnabled(true);
+                if (isCancelled() || boardVersion != version) return;
+                try {
+                    PuzzleSolver.Solution solution = get();
+                    if (solution != null) {
+                        solverCache.putPath(start, solution.moves);
+                        onSolved.accept(solution);
                     }
+                } catch (InterruptedException | ExecutionException ex) {
+                    statusLabel.setText("Solver failed: " + ex.getCause());
+                    statusLabel.setForeground(Color.RED);
                 }
-            } else {
-                 statusLabel.setText("Click a tile next to the empty space to move it.");
-                 statusLabel.setForeground(Color.BLACK);
             }
+        };
+        solveWorker.execute();
+    }
+
+    private ParallelPuzzleSolver solverForCurrentSettings() {
+        int threads = (Integer) threadSpinner.getValue();
+        PatternDatabase pdb = patternDatabase;
+        if (solver == null || solver.threads() != threads || solverDatabase != pdb) {
+            if (solver != null) solver.shutdown();
+            solver = new ParallelPuzzleSolver(pdb, threads);
+            solverDatabase = pdb;
         }
+        return solver;
     }
 
-    // Check if the puzzle is in the solved state
-    private boolean isSolved() {
-        int expectedNumber = 1;
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                // Skip the last cell (should be empty)
-                if (row == GRID_SIZE - 1 && col == GRID_SIZE - 1) {
-                     // Make sure buttons[row][col] exists
-                    return buttons[row][col] != null && buttons[row][col] == emptyButton; // Check if the last one is indeed empty
-                }
-                // Make sure buttons[row][col] exists
-                if (buttons[row][col] == null || !buttons[row][col].getText().equals(String.valueOf(expectedNumber++))) {
-                    return false; // Found a mismatch or null button
-                }
-            }
+    private void stopSolving() {
+        stopReplay();
+        if (solveWorker != null) {
+            solver.cancel();
+            solveWorker.cancel(false);
+            solveWorker = null;
         }
-        // This line should technically not be reached if GRID_SIZE > 0, but added for safety
-        return false;
+        setSolverButtonsEnabled(true);
+    }
+
+    // Load the 3x3 table (built in well under a second on first run), then map the 6-6-3
+    // pattern database, building it on first run (takes tens of seconds)
+    private void loadPatternDatabase() {
+        Thread loader = new Thread(() -> {
+            try {
+                eightPuzzleTable = EightPuzzleTable.loadOrBuild(EightPuzzleTable.defaultFile());
+                SwingUtilities.invokeLater(this::updateSolverButtons);
+            } catch (IOException | RuntimeException ex) {
+                System.err.println("3x3 table unavailable, no hints on 3x3 boards: " + ex);
+            }
+            try {
+                patternDatabase = PatternDatabase.loadOrBuild(
+                        PatternDatabase.defaultFile("6-6-3"), PatternDatabase.PARTITION_663);
+            } catch (IOException | RuntimeException ex) {
+                System.err.println("Pattern database unavailable, using Manhattan distance only: " + ex);
+            }
+        }, "pattern-database-loader");
+        loader.setDaemon(true);
+        loader.setPriority(Thread.MIN_PRIORITY);
+        loader.start();
+    }
+
+    // The optimal solvers handle the 4x4 board, and 3x3 once its table is loaded
+    private boolean isSolverAvailable() {
+        return board.size() == PuzzleBoard.SIZE
+                || (board.size() == EightPuzzleTable.SIZE && eightPuzzleTable != null);
+    }
+
+    private void setSolverButtonsEnabled(boolean enabled) {
+        hintButton.setEnabled(enabled && isSolverAvailable());
+        autoSolveButton.setEnabled(enabled && isSolverAvailable());
+    }
+
+    private void updateSolverButtons() {
+        setSolverButtonsEnabled(solveWorker == null);
     }
 
 
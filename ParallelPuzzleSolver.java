@@ -0,0 +1,248 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Multi-core IDA*: the tree is expanded breadth-first near the root until there are
+// plenty of subtrees per thread, and every iteration hands those subtrees to a
+// ForkJoinPool. Each task runs its own PuzzleSolver (own stack, path and heuristic
+// state); the only shared state is the current bound, the next bound candidate, the
+// cancel flag and the winning path.
+//
+// Any solution found while the bound is T has length T, because every shorter path was
+// ruled out by the previous iteration, so whichever task finishes first is optimal.
+// With threads == 1 this simply runs the sequential PuzzleSolver in the calling thread.
+final class ParallelPuzzleSolver {
+
+    private static final int SUBTREES_PER_THREAD = 64; // Keeps work stealing busy near the end
+    private static final int MAX_SPLIT_DEPTH = 12;
+
+    private final PatternDatabase pdb;
+    private final int threads;
+    private final ForkJoinPool pool; // null when threads == 1
+    private volatile AtomicBoolean currentCancel = new AtomicBoolean();
+
+    ParallelPuzzleSolver(PatternDatabase pdb, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        this.pdb = pdb;
+        this.threads = threads;
+        this.pool = threads == 1 ? null : new ForkJoinPool(threads);
+    }
+
+    int threads() {
+        return threads;
+    }
+
+    // Cancels the solve currently in progress, if any, or the one whose flag newSearch()
+    // handed out last, even if that solve has not started yet
+    void cancel() {
+        currentCancel.set(true);
+    }
+
+    // A fresh cancel flag for the next solve(tiles, cancel). Call it on the thread that
+    // may cancel, before handing the search to a worker, so an early cancel() is not lost.
+    AtomicBoolean newSearch() {
+        AtomicBoolean cancel = new AtomicBoolean();
+        currentCancel = cancel;
+        return cancel;
+    }
+
+    // Lets in-flight tasks finish (cancelled ones return quickly) and frees the threads
+    void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    // Returns null if cancelled; throws if the board can never reach the goal
+    PuzzleSolver.Solution solve(long tiles) {
+        return solve(tiles, newSearch());
+    }
+
+    PuzzleSolver.Solution solve(long tiles, AtomicBoolean cancel) {
+        if (tiles == PuzzleBoard.GOAL) return new PuzzleSolver.Solution(new int[0], 0, 0); // The expansion below never tests the root
+        if (pool == null) return new PuzzleSolver(pdb, cancel).solve(tiles);
+
+        if (!PuzzleBoard.isSolvable(tiles)) {
+            throw new IllegalArgumentException("Board is not solvable:\n" + new PuzzleBoard(tiles));
+        }
+        long start = System.nanoTime();
+        Frontier frontier = Frontier.expand(tiles, threads * SUBTREES_PER_THREAD, pdb);
+        if (frontier == null) {
+            // The goal lies above the split depth, so the search is trivial anyway
+            return new PuzzleSolver(pdb, cancel).solve(tiles);
+        }
+
+        LongAdder nodes = new LongAdder();
+        AtomicReference<int[]> found = new AtomicReference<>();
+        int bound = PuzzleSolver.estimate(tiles, pdb);
+        while (true) {
+            AtomicInteger nextBound = new AtomicInteger(Integer.MAX_VALUE);
+            pool.invoke(new SubtreeTask(frontier, 0, frontier.size, bound, nextBound, found, cancel, nodes));
+            int[] moves = found.get();
+            if (moves != null) {
+                return new PuzzleSolver.Solution(moves, nodes.sum(), System.nanoTime() - start);
+            }
+            if (cancel.get() || nextBound.get() == Integer.MAX_VALUE) return null;
+            bound = nextBound.get();
+        }
+    }
+
+    // Nodes at the split depth, in the order the sequential search would visit them.
+    // 'maxF' is the largest f on the path to each node, so pruning above the split depth
+    // happens exactly as it would in the sequential search.
+    private static final class Frontier {
+        final long[] tiles;
+        final int[] blanks;
+        final int[][] paths;
+        final int[] maxF;
+        final int size;
+
+        private Frontier(long[] tiles, int[] blanks, int[][] paths, int[] maxF) {
+            this.tiles = tiles;
+            this.blanks = blanks;
+            this.paths = paths;
+            this.maxF = maxF;
+            this.size = tiles.length;
+        }
+
+        // Returns null if the goal itself is found while expanding
+        static Frontier expand(long root, int minSubtrees, PatternDatabase pdb) {
+            List<long[]> level = new ArrayList<>(); // {tiles, blank, maxF}
+            List<int[]> paths = new ArrayList<>();
+            level.add(new long[]{root, PuzzleBoard.findBlank(root), PuzzleSolver.estimate(root, pdb)});
+            paths.add(new int[0]);
+            for (int depth = 0; depth < MAX_SPLIT_DEPTH && level.size() < minSubtrees; depth++) {
+                List<long[]> nextLevel = new ArrayList<>(level.size() * 3);
+                List<int[]> nextPaths = new ArrayList<>(level.size() * 3);
+                for (int i = 0; i < level.size(); i++) {
+                    long[] node = level.get(i);
+                    int[] path = paths.get(i);
+                    int blank = (int) node[1];
+                    int legal = PuzzleBoard.legalMoves(blank);
+                    int undo = path.length == 0 ? PuzzleBoard.NO_MOVE : PuzzleBoard.OPPOSITE[path[path.length - 1]];
+                    for (int dir = 0; dir < 4; dir++) {
+                        if ((legal & (1 << dir)) == 0 || dir == undo) continue;
+                        int target = blank + PuzzleBoard.DELTA[dir];
+                        long child = PuzzleBoard.slide(node[0], blank, target);
+                        if (child == PuzzleBoard.GOAL) return null;
+                        int[] childPath = Arrays.copyOf(path, path.length + 1);
+                        childPath[path.length] = dir;
+                        int f = childPath.length + PuzzleSolver.estimate(child, pdb);
+                        nextLevel.add(new long[]{child, target, Math.max(node[2], f)});
+                        nextPaths.add(childPath);
+                    }
+                }
+                level = nextLevel;
+                paths = nextPaths;
+            }
+
+            int n = level.size();
+            long[] tiles = new long[n];
+            int[] blanks = new int[n];
+            int[] maxF = new int[n];
+            for (int i = 0; i < n; i++) {
+                long[] node = level.get(i);
+                tiles[i] = node[0];
+                blanks[i] = (int) node[1];
+                maxF[i] = (int) node[2];
+            }
+            return new Frontier(tiles, blanks, paths.toArray(new int[0][]), maxF);
+        }
+    }
+
+    // Searches frontier[lo, hi) for one iteration, splitting the range in half until a
+    // single subtree is left
+    private final class SubtreeTask extends RecursiveAction {
+        private final Frontier frontier;
+        private final int lo;
+        private final int hi;
+        private final int bound;
+        private final AtomicInteger nextBound;
+        private final AtomicReference<int[]> found;
+        private final AtomicBoolean cancel;
+        private final LongAdder nodes;
+
+        SubtreeTask(Frontier frontier, int lo, int hi, int bound, AtomicInteger nextBound,
+                    AtomicReference<int[]> found, AtomicBoolean cancel, LongAdder nodes) {
+            this.frontier = frontier;
+            this.lo = lo;
+            this.hi = hi;
+            this.bound = bound;
+            this.nextBound = nextBound;
+            this.found = found;
+            this.cancel = cancel;
+            this.nodes = nodes;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancel.get()) return;
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SubtreeTask(frontier, lo, mid, bound, nextBound, found, cancel, nodes),
+                        new SubtreeTask(frontier, mid, hi, bound, nextBound, found, cancel, nodes));
+                return;
+            }
+            int result;
+            if (frontier.maxF[lo] > bound) {
+                result = frontier.maxF[lo]; // Pruned above the split depth
+            } else {
+                int[] prefix = frontier.paths[lo];
+                PuzzleSolver solver = new PuzzleSolver(pdb, cancel);
+                result = solver.searchFrom(frontier.tiles[lo], frontier.blanks[lo], prefix, prefix.length, bound);
+                nodes.add(solver.nodesExpanded());
+                if (result == PuzzleSolver.FOUND) {
+                    if (found.compareAndSet(null, solver.foundPath())) cancel.set(true); // Stop the others
+                    return;
+                }
+            }
+            if (result != PuzzleSolver.CANCELLED) nextBound.accumulateAndGet(result, Math::min);
+        }
+    }
+
+    // Benchmark: solve each board single-threaded and with N threads and report speedup.
+    // Usage: ParallelPuzzleSolver [threads] [boards-file]   (one board per line, 0 = blank)
+    public static void main(String[] args) throws IOException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<Long> boards = new ArrayList<>();
+        if (args.length > 1) {
+            try (BufferedReader in = Files.newBufferedReader(Paths.get(args[1]))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isBlank() && !line.startsWith("#")) boards.add(PuzzleBoard.parse(line));
+                }
+            }
+        } else {
+            // Korf's instances #1 and #3, mirrored to this game's goal layout
+            boards.add(PuzzleBoard.parse("13 6 8 12 15 14 0 10 11 7 4 5 9 1 3 2"));
+            boards.add(PuzzleBoard.parse("1 15 10 13 0 11 4 7 12 6 5 3 14 8 9 2"));
+        }
+
+        PatternDatabase pdb = PatternDatabase.loadOrBuild(
+                PatternDatabase.defaultFile("6-6-3"), PatternDatabase.PARTITION_663);
+        ParallelPuzzleSolver single = new ParallelPuzzleSolver(pdb, 1);
+        ParallelPuzzleSolver parallel = new ParallelPuzzleSolver(pdb, threads);
+        long singleNanos = 0;
+        long parallelNanos = 0;
+        for (long board : boards) {
+            PuzzleSolver.Solution a = single.solve(board);
+            PuzzleSolver.Solution b = parallel.solve(board);
+            singleNanos += a.nanos;
+            parallelNanos += b.nanos;
+            System.out.printf("%s  moves=%d/%d  1 thread: %d ms (%d nodes)  %d threads: %d ms (%d nodes)  speedup %.2fx%n",
+                    PuzzleBoard.format(board), a.length(), b.length(), a.nanos / 1_000_000, a.nodes,
+                    threads, b.nanos / 1_000_000, b.nodes, (double) a.nanos / b.nanos);
+        }
+        System.out.printf("Total: 1 thread %d ms, %d threads %d ms, speedup %.2fx%n",
+                singleNanos / 1_000_000, threads, parallelNanos / 1_000_000, (double) singleNanos / parallelNanos);
+        parallel.shutdown();
+    }
+}
@@ -0,0 +1,326 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Disjoint additive pattern databases for the 4x4 puzzle.
+// The tiles are split into groups; for every placement of one group's tiles the table
+// holds the minimum number of moves *of those tiles* needed to bring them home, with the
+// other tiles treated as indistinguishable. Because the groups are disjoint and only
+// their own moves are counted, the per-group values can be summed and the sum is still
+// an admissible heuristic for IDA*.
+//
+// The tables are built once, written to a compact binary file (one byte per placement),
+// and from then on opened with FileChannel.map, so startup is a few syscalls and the
+// tables live in the page cache instead of the Java heap.
+final class PatternDatabase {
+
+    private static final int CELLS = PuzzleBoard.CELLS;
+    private static final int MAGIC = 0x50444231; // "PDB1"
+    private static final int MAX_GROUP = 7; // 8 tiles + blank would need 4G BFS states
+
+    // Well-known splits of tiles 1..15. The 6-6-3 split is ~11 MB on disk and builds in
+    // well under a minute; 7-7-1 gives stronger estimates but is ~110 MB on disk and needs
+    // about 600 MB of heap for the one-time build.
+    static final int[][] PARTITION_663 = {
+            {5, 6, 9, 10, 13, 14}, {4, 7, 8, 11, 12, 15}, {1, 2, 3}};
+    static final int[][] PARTITION_771 = {
+            {1, 2, 3, 5, 6, 9, 13}, {4, 7, 8, 10, 11, 12, 14}, {15}};
+
+    private final int[][] groups;
+    private final int[] groupOfTile = new int[CELLS]; // -1 for the blank
+    private final ByteBuffer[] tables;
+
+    private PatternDatabase(int[][] groups, ByteBuffer[] tables) {
+        this.groups = groups;
+        this.tables = tables;
+        Arrays.fill(groupOfTile, -1);
+        for (int g = 0; g < groups.length; g++) {
+            for (int tile : groups[g]) groupOfTile[tile] = g;
+        }
+    }
+
+    int groupCount() {
+        return groups.length;
+    }
+
+    int groupOf(int tile) {
+        return groupOfTile[tile];
+    }
+
+    // Moves needed for group 'g' given tile -> cell positions. Uses absolute gets only,
+    // so one instance can be shared by any number of solver threads.
+    int lookup(int g, int[] positions) {
+        return tables[g].get(rank(groups[g], positions)) & 0xFF;
+    }
+
+    // Sum of all groups for a board given as tile -> cell positions
+    int estimate(int[] positions) {
+        int h = 0;
+        for (int g = 0; g < groups.length; g++) h += lookup(g, positions);
+        return h;
+    }
+
+    static int[] positionsOf(long tiles) {
+        int[] positions = new int[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            positions[PuzzleBoard.tileAt(tiles, cell)] = cell;
+        }
+        return positions;
+    }
+
+    // --- Loading ---
+
+    // Map an existing database file, or build it first if it is missing, unreadable
+    // (truncated or corrupt) or was built for a different partition
+    static PatternDatabase loadOrBuild(Path file, int[][] groups) throws IOException {
+        if (Files.exists(file)) {
+            try {
+                PatternDatabase pdb = open(file);
+                if (Arrays.deepEquals(pdb.groups, groups)) return pdb;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Rebuilding unreadable pattern database " + file + ": " + e);
+                Files.deleteIfExists(file);
+            }
+        }
+        build(file, groups);
+        return open(file);
+    }
+
+    static PatternDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 4096));
+            if (header.remaining() < 8 || header.getInt() != MAGIC) {
+                throw new IOException("Not a pattern database: " + file);
+            }
+            int[][] groups = new int[header.getInt()][];
+            for (int g = 0; g < groups.length; g++) {
+                groups[g] = new int[header.get()];
+                for (int i = 0; i < groups[g].length; i++) groups[g][i] = header.get();
+            }
+            validate(groups);
+
+            // The mappings stay valid after the channel is closed
+            ByteBuffer[] tables = new ByteBuffer[groups.length];
+            long offset = header.position();
+            for (int g = 0; g < groups.length; g++) {
+                long size = tableSize(groups[g].length);
+                if (offset + size > channel.size()) throw new IOException("Truncated pattern database: " + file);
+                MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                tables[g] = table;
+                offset += size;
+            }
+            return new PatternDatabase(groups, tables);
+        }
+    }
+
+    static Path defaultFile(String name) {
+        return Paths.get(System.getProperty("user.home"), ".numberpuzzle", "pdb-" + name + ".bin");
+    }
+
+    // --- Building ---
+
+    // Build all tables and write them to 'file' via a temp file, so a crash mid-build
+    // never leaves a half-written database behind
+    static void build(Path file, int[][] groups) throws IOException {
+        validate(groups);
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "pdb", ".tmp");
+        try {
+            try (OutputStream raw = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(groups.length);
+                for (int[] group : groups) {
+                    out.writeByte(group.length);
+                    for (int tile : group) out.writeByte(tile);
+                }
+                for (int[] group : groups) {
+                    out.write(buildTable(group));
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Breadth-first search backwards from the goal over (group placement, blank cell).
+    // Blank moves through non-group cells are free, so whenever a state is first reached
+    // the blank's whole reachable region is flood-filled at the same distance; moving a
+    // group tile costs 1. The result is then minimised over blank positions.
+    static byte[] buildTable(int[] group) {
+        int k = group.length;
+        int blankRadix = CELLS - k;
+        int states = (int) tableSize(k + 1);
+        byte[] dist = new byte[states];
+        Arrays.fill(dist, (byte) -1);
+
+        int[] cells = new int[k];
+        for (int i = 0; i < k; i++) cells[i] = group[i] - 1; // Goal cell of each tile
+        floodFill(dist, cells, PuzzleBoard.GOAL_BLANK, 0);
+
+        int[] digits = new int[k + 1];
+        for (int depth = 0; ; depth++) {
+            boolean expanded = false;
+            for (int index = 0; index < states; index++) {
+                if (dist[index] != depth) continue;
+                expanded = true;
+                int blank = decode(index, k, digits, cells);
+                int occupied = maskOf(cells);
+                int legal = PuzzleBoard.legalMoves(blank);
+                for (int dir = 0; dir < 4; dir++) {
+                    if ((legal & (1 << dir)) == 0) continue;
+                    int target = blank + PuzzleBoard.DELTA[dir];
+                    if ((occupied & (1 << target)) == 0) continue; // Free move, already in region
+                    int moved = indexOfCell(cells, target);
+                    cells[moved] = blank;
+                    int next = rankCells(cells) * blankRadix + blankDigit(maskOf(cells), target);
+                    if (dist[next] == -1) floodFill(dist, cells, target, depth + 1);
+                    cells[moved] = target;
+                }
+            }
+            if (!expanded) break;
+        }
+
+        byte[] table = new byte[(int) tableSize(k)];
+        for (int r = 0; r < table.length; r++) {
+            int best = Integer.MAX_VALUE;
+            for (int b = 0; b < blankRadix; b++) {
+                int d = dist[r * blankRadix + b];
+                if (d >= 0 && d < best) best = d;
+            }
+            table[r] = (byte) best;
+        }
+        return table;
+    }
+
+    private static void floodFill(byte[] dist, int[] cells, int blank, int depth) {
+        int occupied = maskOf(cells);
+        int base = rankCells(cells) * (CELLS - cells.length);
+        int reached = 1 << blank;
+        int frontier = reached;
+        while (frontier != 0) {
+            int cell = Integer.numberOfTrailingZeros(frontier);
+            frontier &= frontier - 1;
+            dist[base + blankDigit(occupied, cell)] = (byte) depth;
+            int legal = PuzzleBoard.legalMoves(cell);
+            for (int dir = 0; dir < 4; dir++) {
+                if ((legal & (1 << dir)) == 0) continue;
+                int next = cell + PuzzleBoard.DELTA[dir];
+                int bit = 1 << next;
+                if ((occupied & bit) == 0 && (reached & bit) == 0) {
+                    reached |= bit;
+                    frontier |= bit;
+                }
+            }
+        }
+    }
+
+    // --- Ranking (k-permutations of the 16 cells, mixed radix 16, 15, 14, ...) ---
+
+    private static int rank(int[] group, int[] positions) {
+        int used = 0;
+        int index = 0;
+        for (int i = 0; i < group.length; i++) {
+            int cell = positions[group[i]];
+            index = index * (CELLS - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+            used |= 1 << cell;
+        }
+        return index;
+    }
+
+    private static int rankCells(int[] cells) {
+        int used = 0;
+        int index = 0;
+        for (int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            index = index * (CELLS - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+            used |= 1 << cell;
+        }
+        return index;
+    }
+
+    private static int blankDigit(int occupied, int blank) {
+        return blank - Integer.bitCount(occupied & ((1 << blank) - 1));
+    }
+
+    // Inverse of rankCells + blankDigit: fills 'cells' and returns the blank cell
+    private static int decode(int index, int k, int[] digits, int[] cells) {
+        for (int i = k; i >= 0; i--) {
+            digits[i] = index % (CELLS - i);
+            index /= CELLS - i;
+        }
+        int used = 0;
+        int blank = -1;
+        for (int i = 0; i <= k; i++) {
+            int cell = nthFree(used, digits[i]);
+            used |= 1 << cell;
+            if (i < k) cells[i] = cell;
+            else blank = cell;
+        }
+        return blank;
+    }
+
+    private static int nthFree(int used, int n) {
+        int free = ~used & ((1 << CELLS) - 1);
+        for (int i = 0; i < n; i++) free &= free - 1;
+        return Integer.numberOfTrailingZeros(free);
+    }
+
+    private static int maskOf(int[] cells) {
+        int mask = 0;
+        for (int cell : cells) mask |= 1 << cell;
+        return mask;
+    }
+
+    private static int indexOfCell(int[] cells, int cell) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == cell) return i;
+        }
+        throw new IllegalStateException("Cell " + cell + " is not occupied by the pattern");
+    }
+
+    // 16 * 15 * ... * (16 - k + 1)
+    private static long tableSize(int k) {
+        long size = 1;
+        for (int i = 0; i < k; i++) size *= CELLS - i;
+        return size;
+    }
+
+    private static void validate(int[][] groups) {
+        int seen = 0;
+        for (int[] group : groups) {
+            if (group.length == 0 || group.length > MAX_GROUP) {
+                throw new IllegalArgumentException("Pattern groups must have 1.." + MAX_GROUP + " tiles");
+            }
+            for (int tile : group) {
+                if (tile < 1 || tile >= CELLS || (seen & (1 << tile)) != 0) {
+                    throw new IllegalArgumentException("Pattern groups must be disjoint tiles 1.." + (CELLS - 1));
+                }
+                seen |= 1 << tile;
+            }
+        }
+    }
+
+    // Prebuild a database from the command line: PatternDatabase [6-6-3|7-7-1] [file]
+    public static void main(String[] args) throws IOException {
+        String name = args.length > 0 ? args[0] : "6-6-3";
+        int[][] groups = name.equals("7-7-1") ? PARTITION_771 : PARTITION_663;
+        Path file = args.length > 1 ? Paths.get(args[1]) : defaultFile(name);
+        long start = System.nanoTime();
+        build(file, groups);
+        System.out.printf("Built %s pattern database %s (%d bytes) in %.1f s%n",
+                name, file, Files.size(file), (System.nanoTime() - start) / 1e9);
+    }
+}
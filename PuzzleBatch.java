@@ -0,0 +1,191 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless batch solver. Streams boards from a file (one per line, 16 numbers, 0 = blank),
+// solves them on a worker pool and streams the solutions out as they finish:
+//
+//   <line> TAB <moves> TAB <blank directions as U/D/L/R> TAB <nodes> TAB <micros>
+//
+// Only a bounded number of boards is in flight at once, so the corpus is never held in
+// memory. At the end it prints nodes/sec, solves/sec and latency percentiles to stderr.
+//
+// Usage: PuzzleBatch [--threads N] [--pdb 6-6-3|7-7-1|none|<file>] [--out <file>] <boards-file|->
+final class PuzzleBatch {
+
+    private static final String MOVE_NAMES = "UDLR"; // Indexed by PuzzleBoard direction
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String pdbName = "6-6-3";
+        String outFile = null;
+        String inFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--pdb": pdbName = args[++i]; break;
+                case "--out": outFile = args[++i]; break;
+                default: inFile = args[i];
+            }
+        }
+        if (inFile == null || threads < 1) {
+            System.err.println("Usage: PuzzleBatch [--threads N] [--pdb 6-6-3|7-7-1|none|<file>] [--out <file>] <boards-file|->");
+            System.exit(2);
+        }
+
+        PatternDatabase pdb = loadDatabase(pdbName);
+        try (BufferedReader in = inFile.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(inFile));
+             Writer out = new BufferedWriter(outFile == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(outFile)), 1 << 16)) {
+            Stats stats = run(in, out, pdb, threads);
+            out.flush();
+            stats.report(threads);
+        }
+    }
+
+    private static PatternDatabase loadDatabase(String name) throws IOException {
+        switch (name) {
+            case "none": return null;
+            case "6-6-3": return PatternDatabase.loadOrBuild(PatternDatabase.defaultFile(name), PatternDatabase.PARTITION_663);
+            case "7-7-1": return PatternDatabase.loadOrBuild(PatternDatabase.defaultFile(name), PatternDatabase.PARTITION_771);
+            default: return PatternDatabase.open(Paths.get(name));
+        }
+    }
+
+    static Stats run(BufferedReader in, Writer out, PatternDatabase pdb, int threads)
+            throws IOException, InterruptedException {
+        Stats stats = new Stats();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "puzzle-batch-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        // One solver per worker thread; solve() resets its own state each time
+        ThreadLocal<PuzzleSolver> solvers = ThreadLocal.withInitial(() -> new PuzzleSolver(pdb));
+        Semaphore inFlight = new Semaphore(threads * 4); // Backpressure on the reader
+        long start = System.nanoTime();
+
+        String line;
+        long lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) continue;
+            final String text = line;
+            final long number = lineNumber;
+            inFlight.acquire();
+            workers.execute(() -> {
+                try {
+                    String result = solveLine(number, text, solvers.get(), stats);
+                    synchronized (out) {
+                        out.write(result);
+                    }
+                } catch (IOException e) {
+                    stats.failures.increment();
+                    System.err.println("Write failed for line " + number + ": " + e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static String solveLine(long number, String text, PuzzleSolver solver, Stats stats) {
+        long tiles;
+        PuzzleSolver.Solution solution;
+        try {
+            tiles = PuzzleBoard.parse(text);
+            solution = solver.solve(tiles);
+        } catch (IllegalArgumentException e) {
+            stats.failures.increment();
+            return number + "\tERROR\t" + e.getMessage().replace('\n', ' ') + "\n";
+        }
+        long micros = solution.nanos / 1000;
+        stats.record(solution.nodes, micros);
+
+        StringBuilder sb = new StringBuilder(32 + solution.length());
+        sb.append(number).append('\t').append(solution.length()).append('\t');
+        for (int move : solution.moves) sb.append(MOVE_NAMES.charAt(move));
+        sb.append('\t').append(solution.nodes).append('\t').append(micros).append('\n');
+        return sb.toString();
+    }
+
+    // Throughput counters plus a fixed-size log-linear latency histogram, so memory stays
+    // constant however many boards go through
+    static final class Stats {
+        private static final int SUB_BUCKETS = 16; // ~6% relative precision
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        final LongAdder solved = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder nodes = new LongAdder();
+        final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+        final AtomicLong maxMicros = new AtomicLong();
+        long elapsedNanos;
+
+        void record(long solveNodes, long micros) {
+            solved.increment();
+            nodes.add(solveNodes);
+            latency.incrementAndGet(bucket(micros));
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 4
+            int sub = (int) (value >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+            return (exponent - 3) * SUB_BUCKETS + sub;
+        }
+
+        // Smallest value that falls into a bucket
+        private static long bucketFloor(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + 3;
+            long sub = bucket % SUB_BUCKETS;
+            return (SUB_BUCKETS + sub) << (exponent - 4);
+        }
+
+        long percentile(double p) {
+            long total = solved.sum();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(p / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += latency.get(i);
+                if (seen >= Math.max(1, rank)) return Math.min(bucketFloor(i), maxMicros.get());
+            }
+            return maxMicros.get();
+        }
+
+        void report(int threads) {
+            double seconds = elapsedNanos / 1e9;
+            long count = solved.sum();
+            System.err.printf("Solved %d boards (%d failed) in %.2f s on %d threads%n",
+                    count, failures.sum(), seconds, threads);
+            System.err.printf("Throughput: %.1f solves/s, %.0f nodes/s (%d nodes)%n",
+                    count / seconds, nodes.sum() / seconds, nodes.sum());
+            System.err.printf("Latency (ms): p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                    percentile(50) / 1000.0, percentile(90) / 1000.0, percentile(99) / 1000.0,
+                    percentile(99.9) / 1000.0, maxMicros.get() / 1000.0);
+        }
+    }
+}
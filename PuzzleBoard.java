@@ -0,0 +1,224 @@
+// Headless model of the 4x4 sliding puzzle.
+// The whole board is packed into one long: 4 bits per cell, cell 0 (top-left) in the
+// lowest nibble, cells numbered row by row. Tiles are 1..15 and the blank is 0.
+// Moves and the solved check are O(1) bit operations, so solvers and batch tools can
+// drive this without touching Swing. The static helpers work on raw packed values.
+final class PuzzleBoard {
+
+    static final int SIZE = 4; // 4x4 grid
+    static final int CELLS = SIZE * SIZE;
+
+    // Directions the blank moves in. Moving the blank UP slides the tile above it down.
+    static final int UP = 0;
+    static final int DOWN = 1;
+    static final int LEFT = 2;
+    static final int RIGHT = 3;
+    static final int NO_MOVE = -1;
+
+    // Cell offset for each direction, and the direction that undoes it
+    static final int[] DELTA = {-SIZE, SIZE, -1, 1};
+    static final int[] OPPOSITE = {DOWN, UP, RIGHT, LEFT};
+
+    // Bitmask of legal directions for each blank cell
+    private static final int[] LEGAL = new int[CELLS];
+
+    // Solved layout: 1..15 in reading order, blank in the last cell
+    static final long GOAL;
+    static final int GOAL_BLANK = CELLS - 1;
+
+    static {
+        long goal = 0L;
+        for (int cell = 0; cell < CELLS - 1; cell++) {
+            goal |= (long) (cell + 1) << (cell << 2);
+        }
+        GOAL = goal;
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            int mask = 0;
+            if (row > 0) mask |= 1 << UP;
+            if (row < SIZE - 1) mask |= 1 << DOWN;
+            if (col > 0) mask |= 1 << LEFT;
+            if (col < SIZE - 1) mask |= 1 << RIGHT;
+            LEGAL[cell] = mask;
+        }
+    }
+
+    private long tiles = GOAL;
+    private int blank = GOAL_BLANK;
+
+    PuzzleBoard() {
+    }
+
+    PuzzleBoard(long tiles) {
+        load(tiles);
+    }
+
+    // --- Static helpers on packed boards ---
+
+    static int tileAt(long tiles, int cell) {
+        return (int) (tiles >>> (cell << 2)) & 0xF;
+    }
+
+    static int findBlank(long tiles) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (tileAt(tiles, cell) == 0) return cell;
+        }
+        throw new IllegalArgumentException("Board has no blank: " + Long.toHexString(tiles));
+    }
+
+    static boolean canMove(int blank, int dir) {
+        return (LEGAL[blank] & (1 << dir)) != 0;
+    }
+
+    // Legal-direction bitmask for a blank cell (bit i set => direction i is legal)
+    static int legalMoves(int blank) {
+        return LEGAL[blank];
+    }
+
+    // Slide the tile at 'target' into the blank cell. The caller guarantees adjacency.
+    // The blank nibble is always 0, so we only clear the target and set the old blank.
+    static long slide(long tiles, int blank, int target) {
+        int shift = target << 2;
+        long tile = (tiles >>> shift) & 0xFL;
+        return (tiles & ~(0xFL << shift)) | (tile << (blank << 2));
+    }
+
+    static long pack(int[] cells) {
+        if (cells.length != CELLS) {
+            throw new IllegalArgumentException("Expected " + CELLS + " cells, got " + cells.length);
+        }
+        long tiles = 0L;
+        int seen = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int tile = cells[cell];
+            if (tile < 0 || tile >= CELLS || (seen & (1 << tile)) != 0) {
+                throw new IllegalArgumentException("Not a permutation of 0.." + (CELLS - 1));
+            }
+            seen |= 1 << tile;
+            tiles |= (long) tile << (cell << 2);
+        }
+        return tiles;
+    }
+
+    static int[] unpack(long tiles) {
+        int[] cells = new int[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            cells[cell] = tileAt(tiles, cell);
+        }
+        return cells;
+    }
+
+    // Parse a board written as 16 numbers separated by spaces and/or commas, 0 = blank
+    static long parse(String text) {
+        String[] parts = text.trim().split("[\\s,]+");
+        if (parts.length != CELLS) {
+            throw new IllegalArgumentException("Expected " + CELLS + " numbers, got " + parts.length + ": " + text);
+        }
+        int[] cells = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = Integer.parseInt(parts[i]);
+        }
+        return pack(cells);
+    }
+
+    // Inverse of parse: one line, blank written as 0
+    static String format(long tiles) {
+        StringBuilder sb = new StringBuilder(CELLS * 3);
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cell > 0) sb.append(' ');
+            sb.append(tileAt(tiles, cell));
+        }
+        return sb.toString();
+    }
+
+    // A board is solvable iff the parity of the permutation (blank counted as tile CELLS)
+    // matches the parity of the blank's Manhattan distance from its goal cell
+    static boolean isSolvable(long tiles) {
+        int inversions = 0;
+        int blank = -1;
+        for (int i = 0; i < CELLS; i++) {
+            int a = tileAt(tiles, i);
+            if (a == 0) {
+                blank = i;
+                a = CELLS;
+            }
+            for (int j = i + 1; j < CELLS; j++) {
+                int b = tileAt(tiles, j);
+                if (b == 0) b = CELLS;
+                if (a > b) inversions++;
+            }
+        }
+        int blankDistance = (SIZE - 1 - blank / SIZE) + (SIZE - 1 - blank % SIZE);
+        return ((inversions ^ blankDistance) & 1) == 0;
+    }
+
+    // --- Instance API used by the view ---
+
+    long packed() {
+        return tiles;
+    }
+
+    int blankCell() {
+        return blank;
+    }
+
+    int tileAt(int cell) {
+        return tileAt(tiles, cell);
+    }
+
+    boolean isSolved() {
+        return tiles == GOAL;
+    }
+
+    void reset() {
+        tiles = GOAL;
+        blank = GOAL_BLANK;
+    }
+
+    void load(long packedTiles) {
+        int newBlank = findBlank(packedTiles); // Validates before we overwrite anything
+        tiles = packedTiles;
+        blank = newBlank;
+    }
+
+    boolean canMove(int dir) {
+        return canMove(blank, dir);
+    }
+
+    // Move the blank one step; returns false (and leaves the board alone) if illegal
+    boolean move(int dir) {
+        if (!canMove(blank, dir)) return false;
+        int target = blank + DELTA[dir];
+        tiles = slide(tiles, blank, target);
+        blank = target;
+        return true;
+    }
+
+    // Slide the tile at 'cell' into the blank if they are adjacent
+    boolean slideTile(int cell) {
+        int dir = directionTo(cell);
+        return dir != NO_MOVE && move(dir);
+    }
+
+    // Direction the blank has to move to reach 'cell', or NO_MOVE if not adjacent
+    int directionTo(int cell) {
+        int diff = cell - blank;
+        for (int dir = 0; dir < 4; dir++) {
+            if (diff == DELTA[dir] && canMove(blank, dir)) return dir;
+        }
+        return NO_MOVE;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cell > 0) sb.append(cell % SIZE == 0 ? '\n' : ' ');
+            int tile = tileAt(cell);
+            sb.append(tile == 0 ? "." : String.valueOf(tile));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+// Generates 4x4 puzzles whose optimal solution length falls in a difficulty band and
+// keeps a small bounded queue of ready puzzles per band. A low-priority daemon thread
+// refills the queues in the background, so handing out a new game is just a poll().
+final class PuzzleGenerator {
+
+    enum Difficulty {
+        EASY("Easy", 8, 20, 20),
+        MEDIUM("Medium", 21, 35, 35),
+        HARD("Hard", 36, 50, 60),
+        EXPERT("Expert", 51, 80, 0);
+
+        final String label;
+        final int minMoves;
+        final int maxMoves;
+        // Length of the random walk used to propose candidates; 0 = uniform random board.
+        // Random boards average ~53 optimal moves, so short walks are needed for the
+        // easier bands and uniform boards only pay off for the hardest one.
+        final int walkLength;
+
+        Difficulty(String label, int minMoves, int maxMoves, int walkLength) {
+            this.label = label;
+            this.minMoves = minMoves;
+            this.maxMoves = maxMoves;
+            this.walkLength = walkLength;
+        }
+
+        @Override
+        public String toString() {
+            return label + " (" + minMoves + "-" + maxMoves + " moves)";
+        }
+    }
+
+    // A ready-to-play board together with its optimal solution length
+    static final class Puzzle {
+        final long tiles;
+        final int optimalMoves;
+        final Difficulty difficulty;
+
+        Puzzle(long tiles, int optimalMoves, Difficulty difficulty) {
+            this.tiles = tiles;
+            this.optimalMoves = optimalMoves;
+            this.difficulty = difficulty;
+        }
+    }
+
+    private final Supplier<PatternDatabase> database; // May return null until the PDB is ready
+    private final Map<Difficulty, BlockingQueue<Puzzle>> pools = new EnumMap<>(Difficulty.class);
+    private final Random random = new Random();
+    private final Object refillSignal = new Object();
+    private volatile boolean running;
+    private Thread worker;
+
+    PuzzleGenerator(Supplier<PatternDatabase> database, int poolSize) {
+        this.database = database;
+        for (Difficulty difficulty : Difficulty.values()) {
+            pools.put(difficulty, new ArrayBlockingQueue<>(poolSize));
+        }
+    }
+
+    void start() {
+        running = true;
+        worker = new Thread(this::fillPools, "puzzle-generator");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    void shutdown() {
+        running = false;
+        if (worker != null) worker.interrupt();
+    }
+
+    // Next ready puzzle of this difficulty, or null if the pool is empty right now
+    Puzzle poll(Difficulty difficulty) {
+        Puzzle puzzle = pools.get(difficulty).poll();
+        if (puzzle != null) {
+            synchronized (refillSignal) {
+                refillSignal.notifyAll();
+            }
+        }
+        return puzzle;
+    }
+
+    int readyCount(Difficulty difficulty) {
+        return pools.get(difficulty).size();
+    }
+
+    // Round-robin over the difficulties, topping up any pool that has room, and sleep
+    // until a puzzle is taken once they are all full
+    private void fillPools() {
+        while (running) {
+            boolean generated = false;
+            for (Difficulty difficulty : Difficulty.values()) {
+                BlockingQueue<Puzzle> pool = pools.get(difficulty);
+                if (pool.remainingCapacity() == 0) continue;
+                Puzzle puzzle = generate(difficulty, random, new PuzzleSolver(database.get()));
+                pool.offer(puzzle);
+                generated = true;
+            }
+            if (!generated) {
+                synchronized (refillSignal) {
+                    try {
+                        refillSignal.wait(1000); // Timed, so a missed notify only costs a second
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Propose candidates until one's optimal length lands in the band. Walks never
+    // immediately undo a move, and every candidate is checked by an exact solve.
+    static Puzzle generate(Difficulty difficulty, Random random, PuzzleSolver solver) {
+        PuzzleBoard board = new PuzzleBoard();
+        TileGrid grid = new TileGrid(PuzzleBoard.SIZE);
+        while (true) {
+            long tiles;
+            if (difficulty.walkLength == 0) {
+                grid.shuffle(random);
+                tiles = grid.packed();
+            } else {
+                board.reset();
+                int previous = PuzzleBoard.NO_MOVE;
+                for (int step = 0; step < difficulty.walkLength; step++) {
+                    int dir = random.nextInt(4);
+                    if (previous != PuzzleBoard.NO_MOVE && dir == PuzzleBoard.OPPOSITE[previous]) continue;
+                    if (board.move(dir)) previous = dir;
+                }
+                tiles = board.packed();
+            }
+            PuzzleSolver.Solution solution = solver.solve(tiles);
+            if (solution == null) throw new IllegalStateException("Generator solver was cancelled");
+            int moves = solution.length();
+            if (moves >= difficulty.minMoves && moves <= difficulty.maxMoves) {
+                return new Puzzle(tiles, moves, difficulty);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Optimal solver for the 4x4 puzzle: IDA* with Manhattan distance plus linear conflicts,
+// optionally combined (max) with an additive PatternDatabase.
+// The search works directly on packed PuzzleBoard values and keeps the heuristic up to
+// date incrementally, so each node costs a handful of table lookups and no allocation.
+// Heap use is just the recursion stack and the precomputed tables (~0.5 MB); pattern
+// database tables are memory-mapped and live off-heap.
+final class PuzzleSolver {
+
+    private static final int SIZE = PuzzleBoard.SIZE;
+    private static final int CELLS = PuzzleBoard.CELLS;
+    static final int FOUND = -1;
+    static final int CANCELLED = Integer.MAX_VALUE;
+    private static final int MAX_DEPTH = 100; // Longest optimal 4x4 solution is 80 moves
+
+    // Manhattan distance of each tile from each cell
+    private static final int[][] MANHATTAN = new int[CELLS][CELLS];
+    // Linear-conflict penalty for every 16-bit row/column key, per row/column
+    private static final byte[][] ROW_CONFLICTS = new byte[SIZE][1 << 16];
+    private static final byte[][] COL_CONFLICTS = new byte[SIZE][1 << 16];
+
+    static {
+        for (int tile = 1; tile < CELLS; tile++) {
+            int goalCell = tile - 1;
+            for (int cell = 0; cell < CELLS; cell++) {
+                MANHATTAN[tile][cell] = Math.abs(goalCell / SIZE - cell / SIZE)
+                        + Math.abs(goalCell % SIZE - cell % SIZE);
+            }
+        }
+        int[] line = new int[SIZE];
+        for (int index = 0; index < SIZE; index++) {
+            for (int key = 0; key < (1 << 16); key++) {
+                for (int i = 0; i < SIZE; i++) line[i] = (key >>> (i << 2)) & 0xF;
+                ROW_CONFLICTS[index][key] = (byte) lineConflicts(line, index, true);
+                COL_CONFLICTS[index][key] = (byte) lineConflicts(line, index, false);
+            }
+        }
+    }
+
+    // Result of a solve: blank directions from the start board to the goal
+    static final class Solution {
+        final int[] moves;
+        final long nodes;
+        final long nanos;
+
+        Solution(int[] moves, long nodes, long nanos) {
+            this.moves = moves;
+            this.nodes = nodes;
+            this.nanos = nanos;
+        }
+
+        int length() {
+            return moves.length;
+        }
+    }
+
+    private final PatternDatabase pdb; // null => Manhattan + linear conflicts only
+    private final int[] positions = new int[CELLS]; // tile -> cell, kept in sync during search
+    private final int[] groupValues; // Current per-group pattern database values
+    private final int[] path = new int[MAX_DEPTH];
+    private int depthFound;
+    private long nodes;
+    private final AtomicBoolean cancelled; // May be shared with other solvers searching the same board
+
+    PuzzleSolver() {
+        this(null);
+    }
+
+    PuzzleSolver(PatternDatabase pdb) {
+        this(pdb, new AtomicBoolean());
+    }
+
+    PuzzleSolver(PatternDatabase pdb, AtomicBoolean cancelled) {
+        this.pdb = pdb;
+        this.groupValues = new int[pdb == null ? 0 : pdb.groupCount()];
+        this.cancelled = cancelled;
+    }
+
+    // Returns null if cancelled; throws if the board can never reach the goal.
+    // A cancelled solver stays cancelled, so use a fresh one for the next board.
+    Solution solve(long tiles) {
+        if (!PuzzleBoard.isSolvable(tiles)) {
+            throw new IllegalArgumentException("Board is not solvable:\n" + new PuzzleBoard(tiles));
+        }
+        long start = System.nanoTime();
+        nodes = 0;
+        int blank = PuzzleBoard.findBlank(tiles);
+        int bound = estimate(tiles, pdb);
+        while (true) {
+            int result = searchFrom(tiles, blank, path, 0, bound);
+            if (result == FOUND) {
+                return new Solution(foundPath(), nodes, System.nanoTime() - start);
+            }
+            if (result == CANCELLED) return null;
+            bound = result;
+        }
+    }
+
+    // Run one bounded iteration from an interior node that was reached by 'prefix[0..g)'.
+    // Returns FOUND (see foundPath), CANCELLED, or the smallest f that exceeded 'bound'.
+    int searchFrom(long tiles, int blank, int[] prefix, int g, int bound) {
+        if (prefix != path) System.arraycopy(prefix, 0, path, 0, g);
+        int h = heuristic(tiles);
+        int pdbSum = 0;
+        if (pdb != null) {
+            for (int cell = 0; cell < CELLS; cell++) positions[PuzzleBoard.tileAt(tiles, cell)] = cell;
+            for (int group = 0; group < groupValues.length; group++) {
+                groupValues[group] = pdb.lookup(group, positions);
+                pdbSum += groupValues[group];
+            }
+        }
+        return search(tiles, blank, g, h, pdbSum, bound, g == 0 ? PuzzleBoard.NO_MOVE : path[g - 1]);
+    }
+
+    // Moves from the root to the goal found by the last successful search
+    int[] foundPath() {
+        return Arrays.copyOf(path, depthFound);
+    }
+
+    // Safe to call from another thread (e.g. the EDT while a SwingWorker is solving)
+    void cancel() {
+        cancelled.set(true);
+    }
+
+    long nodesExpanded() {
+        return nodes;
+    }
+
+    // Admissible estimate of a whole board: max of MD+LC and the pattern database sum
+    static int estimate(long tiles, PatternDatabase pdb) {
+        int h = heuristic(tiles);
+        return pdb == null ? h : Math.max(h, pdb.estimate(PatternDatabase.positionsOf(tiles)));
+    }
+
+    // Depth-first search bounded by f = g + max(h, pdbSum); returns FOUND, CANCELLED or the
+    // smallest f over the bound. 'h' is Manhattan + linear conflicts, 'pdbSum' the pattern database sum.
+    private int search(long tiles, int blank, int g, int h, int pdbSum, int bound, int prevDir) {
+        int f = g + Math.max(h, pdbSum);
+        if (f > bound) return f;
+        if (h == 0) { // Manhattan distance is 0 only for the goal
+            depthFound = g;
+            return FOUND;
+        }
+        if ((++nodes & 0xFFFF) == 0 && cancelled.get()) return CANCELLED;
+
+        int min = Integer.MAX_VALUE;
+        int legal = PuzzleBoard.legalMoves(blank);
+        int undo = prevDir == PuzzleBoard.NO_MOVE ? PuzzleBoard.NO_MOVE : PuzzleBoard.OPPOSITE[prevDir];
+        for (int dir = 0; dir < 4; dir++) {
+            if ((legal & (1 << dir)) == 0 || dir == undo) continue;
+            int target = blank + PuzzleBoard.DELTA[dir];
+            int tile = PuzzleBoard.tileAt(tiles, target);
+            long next = PuzzleBoard.slide(tiles, blank, target);
+            int childH = h + delta(tiles, next, tile, target, blank, dir);
+            path[g] = dir;
+            int result;
+            if (pdb == null) {
+                result = search(next, target, g + 1, childH, 0, bound, dir);
+            } else {
+                // Only the moved tile's group can change value
+                int group = pdb.groupOf(tile);
+                int oldValue = groupValues[group];
+                positions[tile] = blank;
+                int newValue = pdb.lookup(group, positions);
+                groupValues[group] = newValue;
+                result = search(next, target, g + 1, childH, pdbSum - oldValue + newValue, bound, dir);
+                groupValues[group] = oldValue;
+                positions[tile] = target;
+            }
+            if (result == FOUND || result == CANCELLED) return result;
+            if (result < min) min = result;
+        }
+        return min;
+    }
+
+    // Change in Manhattan + linear-conflict value when 'tile' slides from 'from' to 'to'.
+    // A vertical move only changes the two rows involved (column order is unchanged),
+    // and a horizontal move only changes the two columns.
+    private static int delta(long before, long after, int tile, int from, int to, int dir) {
+        int d = MANHATTAN[tile][to] - MANHATTAN[tile][from];
+        if (dir == PuzzleBoard.UP || dir == PuzzleBoard.DOWN) {
+            int r1 = from / SIZE;
+            int r2 = to / SIZE;
+            d += ROW_CONFLICTS[r1][rowKey(after, r1)] + ROW_CONFLICTS[r2][rowKey(after, r2)]
+                    - ROW_CONFLICTS[r1][rowKey(before, r1)] - ROW_CONFLICTS[r2][rowKey(before, r2)];
+        } else {
+            int c1 = from % SIZE;
+            int c2 = to % SIZE;
+            d += COL_CONFLICTS[c1][colKey(after, c1)] + COL_CONFLICTS[c2][colKey(after, c2)]
+                    - COL_CONFLICTS[c1][colKey(before, c1)] - COL_CONFLICTS[c2][colKey(before, c2)];
+        }
+        return d;
+    }
+
+    // Full Manhattan + linear-conflict estimate of a packed board
+    static int heuristic(long tiles) {
+        int h = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            h += MANHATTAN[PuzzleBoard.tileAt(tiles, cell)][cell];
+        }
+        for (int i = 0; i < SIZE; i++) {
+            h += ROW_CONFLICTS[i][rowKey(tiles, i)] + COL_CONFLICTS[i][colKey(tiles, i)];
+        }
+        return h;
+    }
+
+    private static int rowKey(long tiles, int row) {
+        return (int) (tiles >>> (row * SIZE * 4)) & 0xFFFF;
+    }
+
+    private static int colKey(long tiles, int col) {
+        int key = 0;
+        for (int row = 0; row < SIZE; row++) {
+            key |= PuzzleBoard.tileAt(tiles, row * SIZE + col) << (row << 2);
+        }
+        return key;
+    }
+
+    // Linear conflicts in one row/column: tiles that belong to this line but sit in the
+    // wrong relative order. Each tile that has to leave the line to let the others pass
+    // costs 2 extra moves, so the penalty is 2 * (tiles in line - longest ordered subset).
+    private static int lineConflicts(int[] line, int index, boolean isRow) {
+        int[] goals = new int[SIZE];
+        int count = 0;
+        for (int i = 0; i < SIZE; i++) {
+            int tile = line[i];
+            if (tile == 0) continue;
+            int goalCell = tile - 1;
+            int goalLine = isRow ? goalCell / SIZE : goalCell % SIZE;
+            if (goalLine == index) {
+                goals[count++] = isRow ? goalCell % SIZE : goalCell / SIZE;
+            }
+        }
+        // Longest increasing subsequence of at most SIZE entries
+        int[] best = new int[SIZE];
+        int longest = 0;
+        for (int i = 0; i < count; i++) {
+            best[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (goals[j] < goals[i] && best[j] + 1 > best[i]) best[i] = best[j] + 1;
+            }
+            longest = Math.max(longest, best[i]);
+        }
+        return 2 * (count - longest);
+    }
+}
@@ -1,12 +1,18 @@
 import javax.swing.*;
+import javax.swing.text.DefaultCaret;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 // Import FocusListener for saving option text when focus is lost
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
@@ -15,10 +21,11 @@ import java.awt.event.FocusEvent;
 public class QuizApp extends JFrame {
 
     // --- Data Storage (In-Memory) ---
-    // Stores quizzes: Key = Quiz Code, Value = Quiz Object
-    private static Map<String, Quiz> quizzes = new HashMap<>();
-    // Stores user credentials (for basic login/signup)
-    private static Map<String, String[]> users = new HashMap<>(); // Key=username, Value=[password, role]
+    // Quizzes by code and user credentials, safe to share with other threads; every change
+    // goes through it so it gets journaled
+    private static final QuizStore store = new QuizStore();
+    // Appends every change to disk; the app does not run without it
+    private static QuizJournal journal;
 
     // --- Quiz and Question Structures ---
     static class Question {
@@ -39,7 +46,7 @@ public class QuizApp extends JFrame {
     static class Quiz {
         String code;
         String title;
-        List<Question> questions = new ArrayList<>();
+        List<Question> questions = new CopyOnWriteArrayList<>(); // Safe to read while a teacher adds
         // In a real app, you'd add start time, duration etc. here
 
         Quiz(String code, String title) {
@@ -61,10 +68,15 @@ public class QuizApp extends JFrame {
 
     // --- State Variables ---
     private String currentEditingQuizCode = null; // Which quiz the teacher is adding questions to
-    private Quiz currentTakingQuiz = null; // Which quiz the student is taking
-    private int currentQuestionIndex = 0;
-    private int studentScore = 0;
-    private List<Integer> studentAnswers = new ArrayList<>(); // Store student's chosen index for each question
+    // Quizzes in progress, one per student and quiz
+    private static final AttemptRegistry attempts = new AttemptRegistry();
+    private String currentUser; // Who logged in on this window
+    // QuizServer whose live statistics teachers see (StatsClient.SERVER_PROPERTY); null to
+    // show only the attempts taken in this application
+    private static URI statsServer;
+    private StatsClient statsClient; // For the logged-in teacher, null without a server
+    private QuizAttempt currentAttempt; // The quiz the student is taking, null if none
+    private int currentRank; // Leaderboard rank of the finished attempt, 0 if not handed in
 
 
     public QuizApp() {
@@ -105,12 +117,6 @@ public class QuizApp extends JFrame {
         cardLayout.show(mainPanel, panelName);
     }
 
-    private String generateQuizCode() {
-        // Simple 6-digit code generator
-        Random random = new Random();
-        return String.format("%06d", random.nextInt(1000000));
-    }
-
     // --- Panel Classes ---
 
     // 1. Login Panel (Modified to include Signup button)
@@ -166,10 +172,13 @@ public class QuizApp extends JFrame {
                 String password = new String(passwordField.getPassword());
                 messageLabel.setText(" "); // Clear message
 
-                if (users.containsKey(username)) {
-                    String[] userData = users.get(username);
+                String[] userData = store.user(username);
+                if (userData != null) {
                     if (userData[0].equals(password)) {
                         // Login successful
+                        currentUser = username;
+                        statsClient = statsServer != null && userData[1].equals("teacher")
+                                ? new StatsClient(statsServer, username, password) : null;
                         if (userData[1].equals("teacher")) {
                             teacherPanel.refreshQuizList(); // Update teacher's quiz list
                             showPanel("Teacher");
@@ -284,12 +293,19 @@ public class QuizApp extends JFrame {
                      return;
                 }
 
-                if (users.containsKey(username)) {
+                // Check and insert in one step, so two sign-ups cannot both get the name
+                boolean added;
+                try {
+                    added = store.addUser(username, password, role);
+                } catch (IllegalArgumentException tooLong) {
+                    messageLabel.setForeground(Color.RED);
+                    messageLabel.setText(tooLong.getMessage());
+                    return;
+                }
+                if (!added) {
                     messageLabel.setForeground(Color.RED);
                     messageLabel.setText("Username already exists. Please choose another.");
                 } else {
-                    // Add user to the in-memory map
-                    users.put(username, new String[]{password, role});
                     messageLabel.setForeground(Color.GREEN); // Success message color
                     messageLabel.setText("Account created successfully! Please log in.");
                     // Optionally clear fields after success
@@ -310,10 +326,11 @@ public class QuizApp extends JFrame {
         JTextField quizTitleField;
         JButton createQuizButton;
         JList<String> quizListDisplay; // Display "Title (Code)"
-        DefaultListModel<String> quizListModel;
+        QuizListModel quizListModel; // Lazy view of the store's quizzes
         JButton addQuestionsButton;
         JButton logoutButton;
         JLabel messageLabel;
+        JLabel codeSpaceLabel; // How full the quiz code space is
 
         TeacherPanel() {
             setLayout(new BorderLayout(10, 10));
@@ -335,10 +352,13 @@ public class QuizApp extends JFrame {
             // --- Center Panel: Quiz List ---
             JPanel listPanel = new JPanel(new BorderLayout(5, 5));
             listPanel.setBorder(BorderFactory.createTitledBorder("My Quizzes"));
-            quizListModel = new DefaultListModel<>();
+            quizListModel = new QuizListModel(store);
             quizListDisplay = new JList<>(quizListModel);
+            quizListDisplay.setPrototypeCellValue(QuizListModel.PROTOTYPE); // Fixed row size: no need to format every row
             quizListDisplay.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
             listPanel.add(new JScrollPane(quizListDisplay), BorderLayout.CENTER);
+            codeSpaceLabel = new JLabel(" ");
+            listPanel.add(codeSpaceLabel, BorderLayout.SOUTH);
 
             // --- Bottom Panel: Actions ---
             JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -359,15 +379,13 @@ public class QuizApp extends JFrame {
         }
 
         void refreshQuizList() {
-            quizListModel.clear();
-            messageLabel.setText(" ");
+            // The list model follows the store by itself; only the status line is redrawn.
             // In a real app, filter by teacher ID
-            for (Quiz quiz : quizzes.values()) {
-                quizListModel.addElement(quiz.title + " (" + quiz.code + ")");
-            }
-            if (quizListModel.isEmpty()) {
-                 quizListModel.addElement("No quizzes created yet.");
-            }
+            messageLabel.setText(" ");
+            QuizCodeAllocator codes = store.codes();
+            codeSpaceLabel.setText((store.quizCount() == 0 ? "No quizzes created yet. " : "")
+                    + String.format("Quiz codes in use: %,d of %,d (%.1f%%)",
+                    codes.usedCount(), QuizCodeAllocator.CAPACITY, 100 * codes.fullness()));
         }
 
         @Override
@@ -379,22 +397,24 @@ public class QuizApp extends JFrame {
                     messageLabel.setText("Please enter a quiz title.");
                     return;
                 }
-                String code = generateQuizCode();
-                while (quizzes.containsKey(code)) { // Ensure code is unique
-                    code = generateQuizCode();
+                String code;
+                try {
+                    code = store.createQuiz(title).code;
+                } catch (IllegalStateException full) {
+                    messageLabel.setText("No quiz codes left. Please contact the administrator.");
+                    return;
+                } catch (IllegalArgumentException tooLong) {
+                    messageLabel.setText(tooLong.getMessage());
+                    return;
                 }
-                Quiz newQuiz = new Quiz(code, title);
-                quizzes.put(code, newQuiz);
                 quizTitleField.setText(""); // Clear input
                 messageLabel.setText("Quiz '" + title + "' created with code: " + code);
                 refreshQuizList(); // Update the list
             } else if (e.getSource() == addQuestionsButton) {
                 int selectedIndex = quizListDisplay.getSelectedIndex();
-                if (selectedIndex != -1 && !quizListModel.getElementAt(selectedIndex).startsWith("No quizzes")) {
-                    String selectedItem = quizListModel.getElementAt(selectedIndex);
-                    // Extract code from "Title (Code)"
-                    currentEditingQuizCode = selectedItem.substring(selectedItem.lastIndexOf('(') + 1, selectedItem.lastIndexOf(')'));
-                    Quiz selectedQuiz = quizzes.get(currentEditingQuizCode);
+                if (selectedIndex != -1) {
+                    currentEditingQuizCode = quizListModel.codeAt(selectedIndex);
+                    Quiz selectedQuiz = store.quiz(currentEditingQuizCode);
                     if (selectedQuiz != null) {
                         addQuestionsPanel.loadQuizData(selectedQuiz);
                         showPanel("AddQuestions");
@@ -414,6 +434,7 @@ public class QuizApp extends JFrame {
 
     // 3. Add Questions Panel (MODIFIED UI and logic)
     class AddQuestionsPanel extends JPanel implements ActionListener {
+        static final int MAX_SHOWN_QUESTIONS = 200;
         JLabel quizTitleLabel;
         JTextArea questionTextArea;
         JButton[] editOptionButtons = new JButton[4]; // Buttons to trigger editing
@@ -425,6 +446,16 @@ public class QuizApp extends JFrame {
         JButton doneButton;
         JLabel messageLabel;
         JTextArea addedQuestionsArea;
+        JTextArea statsArea; // Live answer counts while students take the quiz
+        Timer statsTimer;
+        ItemStats shownStats; // This application's own counts, when there is no stats server
+        // Server requests run here so the EDT never waits on the network; one at a time
+        private final ExecutorService statsFetcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "stats-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private boolean fetchingStats; // EDT only
 
         // Temporary storage for option texts while editing
         private String[] currentOptionTexts = {"", "", "", ""};
@@ -510,6 +541,20 @@ public class QuizApp extends JFrame {
             addedQuestionsArea.setWrapStyleWord(true);
             addedPanel.add(new JScrollPane(addedQuestionsArea), BorderLayout.CENTER);
 
+            // --- Live Statistics Display ---
+            JPanel statsPanel = new JPanel(new BorderLayout(5, 5));
+            statsPanel.setBorder(BorderFactory.createTitledBorder("Live Answer Statistics"));
+            statsArea = new JTextArea(10, 40);
+            statsArea.setEditable(false);
+            statsArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+            ((DefaultCaret) statsArea.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE); // Keep the scroll position on refresh
+            statsPanel.add(new JScrollPane(statsArea), BorderLayout.CENTER);
+            statsTimer = new Timer(1000, e -> refreshStatsDisplay());
+
+            JPanel sidePanel = new JPanel(new GridLayout(2, 1, 5, 5));
+            sidePanel.add(addedPanel);
+            sidePanel.add(statsPanel);
+
             // --- Done Button ---
             doneButton = new JButton("Done Adding Questions (Back to Quiz List)");
             JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
@@ -517,7 +562,7 @@ public class QuizApp extends JFrame {
 
             add(quizTitleLabel, BorderLayout.NORTH);
             add(formPanel, BorderLayout.CENTER);
-            add(addedPanel, BorderLayout.EAST);
+            add(sidePanel, BorderLayout.EAST);
             add(bottomPanel, BorderLayout.SOUTH);
 
             addQuestionButton.addActionListener(this);
@@ -565,6 +610,66 @@ public class QuizApp extends JFrame {
             messageLabel.setText(" ");
             clearFormForNewQuestion(); // Clear form state
             refreshAddedQuestionsDisplay(quiz);
+            shownStats = statsClient == null ? attempts.statsFor(quiz) : null;
+            statsArea.setText(statsClient == null ? "" : "Connecting to " + statsClient.server() + "...");
+            refreshStatsDisplay();
+            statsTimer.start();
+        }
+
+        // Redraw the answer counts of the quiz being edited; runs once a second while shown.
+        // With a stats server the counts come from its /stats, fetched in the background.
+        void refreshStatsDisplay() {
+            Quiz quiz = store.quiz(currentEditingQuizCode);
+            if (quiz == null) return;
+            if (statsClient == null) {
+                if (shownStats != null) showStats(quiz, shownStats.attempts.sum(), shownStats.snapshot(), "this application only");
+                return;
+            }
+            if (fetchingStats) return; // The last request is still out
+            fetchingStats = true;
+            StatsClient client = statsClient;
+            statsFetcher.execute(() -> {
+                try {
+                    StatsClient.Snapshot snapshot = client.fetch(quiz.code);
+                    SwingUtilities.invokeLater(() -> {
+                        fetchingStats = false;
+                        if (quiz.code.equals(currentEditingQuizCode)) {
+                            showStats(quiz, snapshot.attempts, snapshot.counts, client.server().toString());
+                        }
+                    });
+                } catch (IOException e) {
+                    SwingUtilities.invokeLater(() -> {
+                        fetchingStats = false;
+                        if (quiz.code.equals(currentEditingQuizCode)) {
+                            statsArea.setText("Live statistics unavailable:\n" + e.getMessage());
+                        }
+                    });
+                }
+            });
+        }
+
+        private void showStats(Quiz quiz, long attemptsStarted, long[] snapshot, String source) {
+            int questions = quiz.questions.size();
+            // Questions nobody has answered yet have no counters; they show as zeros
+            long[] counts = Arrays.copyOf(snapshot, questions * 4);
+            StringBuilder sb = new StringBuilder();
+            sb.append("Attempts started: ").append(attemptsStarted).append(" (").append(source).append(")\n\n");
+            sb.append("        Correct  Answers      1     2     3     4\n");
+            for (int i = 0; i < Math.min(questions, MAX_SHOWN_QUESTIONS); i++) {
+                int correct = quiz.questions.get(i).correctOptionIndex;
+                long answers = 0;
+                for (int j = 0; j < 4; j++) answers += counts[i * 4 + j];
+                sb.append(String.format("Q%-5d %6s %8d  ", i + 1,
+                        answers == 0 ? "-" : Math.round(100.0 * counts[i * 4 + correct] / answers) + "%", answers));
+                for (int j = 0; j < 4; j++) {
+                    sb.append(String.format("%5d%s", counts[i * 4 + j], j == correct ? "*" : " "));
+                }
+                sb.append("\n");
+            }
+            if (questions > MAX_SHOWN_QUESTIONS) sb.append("(").append(questions - MAX_SHOWN_QUESTIONS).append(" more questions not shown)\n");
+            if (questions == 0) sb.append("No questions yet.\n");
+            String text = sb.toString();
+            if (!text.equals(statsArea.getText())) statsArea.setText(text);
         }
 
         void clearFormForNewQuestion() {
@@ -595,7 +700,11 @@ public class QuizApp extends JFrame {
                  addedQuestionsArea.setText("No questions added yet for this quiz.");
             } else {
                 StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < quiz.questions.size(); i++) {
+                // Only the latest questions are shown, so a banked quiz with thousands of
+                // questions does not get decoded in full
+                int first = Math.max(0, quiz.questions.size() - MAX_SHOWN_QUESTIONS);
+                if (first > 0) sb.append("(").append(first).append(" earlier questions not shown)\n----\n");
+                for (int i = first; i < quiz.questions.size(); i++) {
                     Question q = quiz.questions.get(i);
                     sb.append("Q").append(i + 1).append(": ").append(q.questionText).append("\n");
                     for(int j=0; j<4; j++) {
@@ -644,7 +753,7 @@ public class QuizApp extends JFrame {
                     return;
                 }
 
-                Quiz currentQuiz = quizzes.get(currentEditingQuizCode);
+                Quiz currentQuiz = store.quiz(currentEditingQuizCode);
                 if (currentQuiz != null) {
                     // Create the new Question object
                     Question newQuestion = new Question(qText,
@@ -653,7 +762,12 @@ public class QuizApp extends JFrame {
                         correctIndex);
 
                     // Add the question to the quiz's list
-                    currentQuiz.questions.add(newQuestion);
+                    try {
+                        store.addQuestion(currentQuiz, newQuestion);
+                    } catch (IllegalArgumentException tooLong) {
+                        messageLabel.setText(tooLong.getMessage());
+                        return;
+                    }
 
                     messageLabel.setText("Question added!");
                     refreshAddedQuestionsDisplay(currentQuiz); // Update display RIGHT AFTER adding
@@ -664,6 +778,8 @@ public class QuizApp extends JFrame {
 
             } else if (e.getSource() == doneButton) {
                 saveCurrentOptionText(); // Save any pending text before leaving
+                statsTimer.stop();
+                shownStats = null;
                 currentEditingQuizCode = null; // Reset editing state
                 teacherPanel.refreshQuizList(); // Refresh list in case of changes
                 showPanel("Teacher");
@@ -721,17 +837,14 @@ public class QuizApp extends JFrame {
              messageLabel.setText(" "); // Clear message
             if (e.getSource() == startQuizButton) {
                 String code = codeField.getText().trim();
-                if (quizzes.containsKey(code)) {
-                    currentTakingQuiz = quizzes.get(code);
-                    if (currentTakingQuiz.questions.isEmpty()) {
+                Quiz quiz = store.quiz(code);
+                if (quiz != null) {
+                    if (quiz.questions.isEmpty()) {
                         messageLabel.setText("This quiz has no questions yet.");
-                        currentTakingQuiz = null; // Reset
                         return;
                     }
-                    // Reset quiz state for student
-                    currentQuestionIndex = 0;
-                    studentScore = 0;
-                    studentAnswers.clear();
+                    // A fresh attempt, replacing any earlier one on this quiz
+                    currentAttempt = attempts.start(currentUser, quiz);
 
                     takeQuizPanel.loadQuestion(); // Load the first question
                     showPanel("TakeQuiz");
@@ -741,7 +854,7 @@ public class QuizApp extends JFrame {
                 }
             } else if (e.getSource() == logoutButton) {
                 // Clear quiz state if any
-                 currentTakingQuiz = null;
+                 endAttempt();
                  codeField.setText("");
                 showPanel("Login");
             }
@@ -795,14 +908,15 @@ public class QuizApp extends JFrame {
         }
 
         void loadQuestion() {
-            if (currentTakingQuiz == null || currentQuestionIndex >= currentTakingQuiz.questions.size()) {
+            if (currentAttempt == null) {
                 // Should not happen if logic is correct, but handles error state
                 showResults();
                 return;
             }
 
-            Question q = currentTakingQuiz.questions.get(currentQuestionIndex);
-            questionNumberLabel.setText("Question " + (currentQuestionIndex + 1) + " of " + currentTakingQuiz.questions.size());
+            int index = currentAttempt.current();
+            Question q = currentAttempt.question(index);
+            questionNumberLabel.setText("Question " + (index + 1) + " of " + currentAttempt.questionCount());
             questionTextDisplay.setText(q.questionText);
             optionsGroup.clearSelection(); // Clear previous selection
 
@@ -813,7 +927,7 @@ public class QuizApp extends JFrame {
             }
 
             // Change button text for the last question
-            if (currentQuestionIndex == currentTakingQuiz.questions.size() - 1) {
+            if (index == currentAttempt.questionCount() - 1) {
                 nextButton.setText("Finish Quiz");
             } else {
                 nextButton.setText("Next Question");
@@ -837,14 +951,13 @@ public class QuizApp extends JFrame {
             }
 
             // Record student's answer
-            studentAnswers.add(selectedOption);
+            currentAttempt.answer(currentAttempt.current(), selectedOption);
 
             // Move to next question or finish
-            currentQuestionIndex++;
-            if (currentQuestionIndex < currentTakingQuiz.questions.size()) {
+            if (currentAttempt.advance()) {
                 loadQuestion();
             } else {
-                calculateResults();
+                currentRank = attempts.finish(currentAttempt); // Hand in: goes on the leaderboard
                 showResults();
             }
         }
@@ -883,15 +996,33 @@ public class QuizApp extends JFrame {
         }
 
         void displayResults() {
-             if (currentTakingQuiz == null) return; // Should not happen
+             if (currentAttempt == null) return; // Should not happen
 
-             scoreLabel.setText("Your Score: " + studentScore + " / " + currentTakingQuiz.questions.size());
+             Leaderboard leaderboard = attempts.leaderboardFor(currentAttempt.quiz);
+             String score = "Your Score: " + currentAttempt.score() + " / " + currentAttempt.questionCount();
+             if (currentRank > 0) {
+                 score = "<html><center>" + score + "<br>Rank " + currentRank + " of " + leaderboard.results() + "</center></html>";
+             }
+             scoreLabel.setText(score);
 
-             StringBuilder summary = new StringBuilder("--- Quiz Summary ---\n\n");
-             for(int i=0; i < currentTakingQuiz.questions.size(); i++) {
-                 Question q = currentTakingQuiz.questions.get(i);
-                 int studentAnsIndex = (i < studentAnswers.size()) ? studentAnswers.get(i) : -1; // Get student answer, handle if missing
-                 boolean isCorrect = (studentAnsIndex == q.correctOptionIndex);
+             StringBuilder summary = new StringBuilder("--- Leaderboard ---\n\n");
+             int place = 1;
+             for (Leaderboard.Entry entry : leaderboard.top()) {
+                 summary.append(String.format("%2d. %-20s %d%n", place++, entry.username, entry.score));
+             }
+             summary.append("\n--- Score Distribution ---\n\n");
+             long[] histogram = leaderboard.histogram();
+             long most = Math.max(1, Arrays.stream(histogram).max().orElse(1));
+             for (int s = histogram.length - 1; s >= 0; s--) {
+                 if (histogram[s] == 0 && histogram.length > 50) continue; // Long quiz: only scores someone got
+                 int bar = (int) (30 * histogram[s] / most);
+                 summary.append(String.format("%4d | %s %d%n", s, "#".repeat(bar), histogram[s]));
+             }
+             summary.append("\n--- Quiz Summary ---\n\n");
+             for(int i=0; i < currentAttempt.questionCount(); i++) {
+                 Question q = currentAttempt.question(i);
+                 int studentAnsIndex = currentAttempt.answerOf(i); // QuizAttempt.NO_ANSWER (-1) if skipped
+                 boolean isCorrect = currentAttempt.isCorrect(i); // Graded when it was answered
 
                  summary.append("Q").append(i+1).append(": ").append(q.questionText).append("\n");
                  summary.append("  Correct Answer: ").append(q.options[q.correctOptionIndex]).append("\n");
@@ -910,28 +1041,17 @@ public class QuizApp extends JFrame {
         @Override
         public void actionPerformed(ActionEvent e) {
             // Reset quiz state
-            currentTakingQuiz = null;
-            currentQuestionIndex = 0;
-            studentScore = 0;
-            studentAnswers.clear();
+            endAttempt();
             showPanel("Student"); // Go back to student code entry
         }
     }
 
 
-     // --- Helper Methods to Calculate and Show Results ---
-    private void calculateResults() {
-        if (currentTakingQuiz == null) return;
-        studentScore = 0;
-        for (int i = 0; i < currentTakingQuiz.questions.size(); i++) {
-            if (i < studentAnswers.size()) { // Check if student answered this question
-                 Question q = currentTakingQuiz.questions.get(i);
-                 int studentAnsIndex = studentAnswers.get(i);
-                 if (studentAnsIndex == q.correctOptionIndex) {
-                     studentScore++;
-                 }
-            }
-        }
+     // --- Helper Methods to End and Show Results ---
+    private void endAttempt() {
+        if (currentAttempt != null) attempts.remove(currentAttempt);
+        currentAttempt = null;
+        currentRank = 0;
     }
 
      private void showResults() {
@@ -940,8 +1060,69 @@ public class QuizApp extends JFrame {
      }
 
 
+    private static void loadBank(Path bankFile) {
+        try {
+            if (Files.exists(bankFile)) QuizBank.open(bankFile).addTo(store.quizMap());
+        } catch (IOException e) {
+            System.err.println("Quiz bank unavailable: " + e);
+        }
+    }
+
     // --- Main Method ---
     public static void main(String[] args) {
+        // Load saved quizzes and users before any window can touch them: the read-only
+        // bank first (questions stay on disk until needed), then the journaled changes
+        Path bankFile = args.length > 0 ? Paths.get(args[0]) : QuizBank.defaultFile();
+        loadBank(bankFile);
+        Path dataDir = QuizJournal.defaultDirectory();
+        try {
+            journal = QuizJournal.open(dataDir, store.quizMap(), store.userMap());
+        } catch (IOException e) {
+            // Running on without a journal would lose every later change without a word, so
+            // the user either starts over from the bank or quits
+            System.err.println("Quiz data unreadable: " + e);
+            Object[] options = {"Start over", "Quit"};
+            int choice = JOptionPane.showOptionDialog(null,
+                    "The saved quiz data in " + dataDir + " could not be read:\n" + e.getMessage()
+                            + "\n\nStart over moves the damaged files into a backup folder there and starts with"
+                            + "\nno saved quizzes or users beyond the quiz bank.",
+                    "Quiz Master", JOptionPane.DEFAULT_OPTION, JOptionPane.ERROR_MESSAGE, null, options, options[1]);
+            if (choice != 0) System.exit(1);
+            try {
+                Path aside = QuizJournal.moveAside(dataDir);
+                System.err.println("Moved damaged quiz data to " + aside);
+                store.quizMap().clear(); // Drop whatever was loaded before the failure
+                store.userMap().clear();
+                loadBank(bankFile);
+                journal = QuizJournal.open(dataDir, store.quizMap(), store.userMap());
+            } catch (IOException again) {
+                JOptionPane.showMessageDialog(null, "Could not start over in " + dataDir + ":\n" + again.getMessage(),
+                        "Quiz Master", JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+            }
+        }
+        store.setJournal(journal);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Could not close quiz journal: " + e);
+            }
+        }, "quiz-journal-close"));
+        store.indexLoadedQuizzes();
+        String server = System.getProperty(StatsClient.SERVER_PROPERTY);
+        if (server != null) {
+            try {
+                URI uri = URI.create(server);
+                if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) {
+                    throw new IllegalArgumentException("expected an http:// or https:// URL, got " + server);
+                }
+                statsServer = uri;
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring " + StatsClient.SERVER_PROPERTY + ": " + e.getMessage());
+            }
+        }
+
         // Ensure GUI updates happen on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             QuizApp app = new QuizApp();
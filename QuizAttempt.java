@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+// One student's run through one quiz: the chosen option per question (one byte each,
+// NO_ANSWER if skipped so far) and which question they are on. Kept small on purpose:
+// with its AttemptRegistry entry it takes about 250 bytes plus one per question, so a
+// server can hold 100k of them.
+//
+// Each answer is graded as it comes in: a running score and answered count plus one bit
+// per question for "correct", so finishing or scoring an attempt costs O(1) however
+// many questions it has.
+//
+// The question count is fixed when the attempt starts; questions a teacher adds later
+// are not part of it. Once handed in, an attempt takes no more answers. All methods are safe to call from any thread.
+final class QuizAttempt {
+
+    static final byte NO_ANSWER = -1;
+
+    final String username;
+    final QuizApp.Quiz quiz;
+    private final ItemStats stats; // Null if nobody is counting
+    private final byte[] answers;
+    private final long[] correct; // Bit i set if answer i is right
+    private int score;
+    private int answered;
+    private int current; // Question the student is looking at
+    private boolean handedIn;
+    private volatile long lastActive; // System.nanoTime() of the last use
+
+    QuizAttempt(String username, QuizApp.Quiz quiz, ItemStats stats) {
+        this.username = username;
+        this.quiz = quiz;
+        this.stats = stats;
+        this.answers = new byte[quiz.questions.size()];
+        Arrays.fill(answers, NO_ANSWER);
+        this.correct = new long[(answers.length + 63) >>> 6];
+        touch();
+    }
+
+    int questionCount() {
+        return answers.length;
+    }
+
+    QuizApp.Question question(int index) {
+        return quiz.questions.get(index);
+    }
+
+    // Record (or change) an answer and grade it; IllegalStateException once handed in
+    void answer(int question, int option) {
+        if (question < 0 || question >= answers.length) throw new IllegalArgumentException("No question " + question);
+        if (option < 0 || option > 3) throw new IllegalArgumentException("Option must be 0..3");
+        boolean right = option == question(question).correctOptionIndex; // Decoded outside the lock
+        long bit = 1L << question;
+        int previous;
+        synchronized (this) {
+            if (handedIn) throw new IllegalStateException("Attempt was already handed in");
+            previous = answers[question];
+            if (previous == NO_ANSWER) answered++;
+            answers[question] = (byte) option;
+            boolean wasRight = (correct[question >>> 6] & bit) != 0;
+            if (right != wasRight) {
+                correct[question >>> 6] ^= bit;
+                score += right ? 1 : -1;
+            }
+        }
+        if (stats != null) stats.recordAnswer(question, previous, option); // Counters commute; no lock needed
+        touch();
+    }
+
+    // Take this attempt's answers back out of the item statistics, e.g. when the student
+    // starts the quiz over
+    void retract() {
+        if (stats == null) return;
+        byte[] snapshot;
+        synchronized (this) {
+            snapshot = answers.clone();
+        }
+        for (int i = 0; i < snapshot.length; i++) stats.recordAnswer(i, snapshot[i], NO_ANSWER);
+    }
+
+    // The chosen option, or NO_ANSWER
+    synchronized int answerOf(int question) {
+        return answers[question];
+    }
+
+    synchronized boolean isCorrect(int question) {
+        return (correct[question >>> 6] & (1L << question)) != 0;
+    }
+
+    synchronized int answeredCount() {
+        return answered;
+    }
+
+    synchronized int score() {
+        return score;
+    }
+
+    synchronized int current() {
+        return current;
+    }
+
+    // Move to the next question; false if that was the last one
+    synchronized boolean advance() {
+        touch();
+        if (current + 1 >= answers.length) return false;
+        current++;
+        return true;
+    }
+
+    // Freeze the answers; false if that already happened
+    synchronized boolean handIn() {
+        if (handedIn) return false;
+        handedIn = true;
+        return true;
+    }
+
+    synchronized boolean isHandedIn() {
+        return handedIn;
+    }
+
+    synchronized boolean isFinished() {
+        return answered == answers.length;
+    }
+
+    void touch() {
+        lastActive = System.nanoTime();
+    }
+
+    long idleNanos(long now) {
+        return now - lastActive;
+    }
+}
@@ -0,0 +1,263 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Read-only bank of quizzes in a compact binary file, opened with FileChannel.map so the
+// questions stay on disk (in the page cache) until somebody looks at one. Opening a bank
+// decodes only the quiz index, codes and titles; each quiz gets a QuestionList that
+// decodes a question from the mapping on every get(). Questions added while the app runs
+// go into a small in-heap overlay on top of the bank (and into the journal).
+//
+// open() walks every offset and string length once (without decoding any text), so a
+// truncated or damaged file is reported as an IOException up front instead of failing
+// later in a lazy get() on the EDT or in a request handler.
+//
+// Layout (all ints big-endian, offsets from the start of the file):
+//   "QBK1", quiz count, quiz offset[quiz count]
+//   quiz:     code, title, question count, question offset[question count]
+//   question: text, option x4, byte correct option
+//   string:   int byte length, UTF-8 bytes
+final class QuizBank {
+
+    private static final int MAGIC = 0x51424B31; // "QBK1"
+
+    private final ByteBuffer data;
+
+    private QuizBank(ByteBuffer data) {
+        this.data = data;
+    }
+
+    static QuizBank open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Quiz bank over 2 GB: " + file);
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Outlives the channel
+            if (data.limit() < 8 || data.getInt(0) != MAGIC) throw new IOException("Not a quiz bank: " + file);
+            QuizBank bank = new QuizBank(data);
+            bank.validate(file);
+            return bank;
+        }
+    }
+
+    // Check that every offset, count and string the readers below will follow lies inside
+    // the file
+    private void validate(Path file) throws IOException {
+        int limit = data.limit();
+        int quizzes = data.getInt(4);
+        if (quizzes < 0 || 8 + 4L * quizzes > limit) throw new IOException("Bad quiz count in " + file);
+        for (int i = 0; i < quizzes; i++) {
+            long pos = data.getInt(8 + 4 * i);
+            pos = skipString(pos, file); // Code
+            pos = skipString(pos, file); // Title
+            if (pos < 8 || pos + 4 > limit) throw new IOException("Bad quiz " + i + " in " + file);
+            int questions = data.getInt((int) pos);
+            long table = pos + 4;
+            if (questions < 0 || table + 4L * questions > limit) throw new IOException("Bad question count in quiz " + i + " of " + file);
+            for (int q = 0; q < questions; q++) {
+                long question = data.getInt((int) (table + 4L * q));
+                for (int field = 0; field < 5; field++) question = skipString(question, file);
+                if (question >= limit || data.get((int) question) < 0 || data.get((int) question) > 3) {
+                    throw new IOException("Bad question " + q + " in quiz " + i + " of " + file);
+                }
+            }
+        }
+    }
+
+    // Position after the string at 'pos', which must fit in the file
+    private long skipString(long pos, Path file) throws IOException {
+        if (pos < 8 || pos + 4 > data.limit()) throw new IOException("Bad offset " + pos + " in " + file);
+        int length = data.getInt((int) pos);
+        long end = pos + 4 + length;
+        if (length < 0 || end > data.limit()) throw new IOException("Bad string length at " + pos + " in " + file);
+        return end;
+    }
+
+    static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".quizmaster", "bank.qbk");
+    }
+
+    int quizCount() {
+        return data.getInt(4);
+    }
+
+    // Put every quiz in the bank into 'quizzes', each backed by a lazy question list
+    void addTo(Map<String, QuizApp.Quiz> quizzes) {
+        int count = quizCount();
+        for (int i = 0; i < count; i++) {
+            int pos = data.getInt(8 + 4 * i);
+            String code = readString(pos);
+            pos += 4 + data.getInt(pos);
+            String title = readString(pos);
+            pos += 4 + data.getInt(pos);
+            QuizApp.Quiz quiz = new QuizApp.Quiz(code, title);
+            quiz.questions = new QuestionList(this, pos + 4, data.getInt(pos));
+            quizzes.put(code, quiz);
+        }
+    }
+
+    // Questions of one banked quiz: the first bankSize() come from the mapping and are
+    // decoded on demand; the rest were added at runtime and live on the heap
+    static final class QuestionList extends AbstractList<QuizApp.Question> {
+        private final QuizBank bank;
+        private final int tablePos;
+        private final int bankSize;
+        private final List<QuizApp.Question> added = new CopyOnWriteArrayList<>(); // Read without locks
+
+        QuestionList(QuizBank bank, int tablePos, int bankSize) {
+            this.bank = bank;
+            this.tablePos = tablePos;
+            this.bankSize = bankSize;
+        }
+
+        @Override
+        public QuizApp.Question get(int index) {
+            if (index < bankSize) {
+                if (index < 0) throw new IndexOutOfBoundsException("Question " + index);
+                return bank.readQuestion(bank.data.getInt(tablePos + 4 * index));
+            }
+            return added.get(index - bankSize);
+        }
+
+        @Override
+        public int size() {
+            return bankSize + added.size();
+        }
+
+        @Override
+        public boolean add(QuizApp.Question question) {
+            modCount++;
+            return added.add(question);
+        }
+
+        int bankSize() {
+            return bankSize;
+        }
+
+        // Questions that are not in the bank file
+        List<QuizApp.Question> added() {
+            return added;
+        }
+    }
+
+    // Absolute reads only, so one bank can be shared by any number of threads
+    private QuizApp.Question readQuestion(int pos) {
+        String[] fields = new String[5];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = readString(pos);
+            pos += 4 + data.getInt(pos);
+        }
+        return new QuizApp.Question(fields[0], fields[1], fields[2], fields[3], fields[4], data.get(pos));
+    }
+
+    private String readString(int pos) {
+        byte[] bytes = new byte[data.getInt(pos)];
+        data.get(pos + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // --- Writing ---
+
+    // Write 'quizzes' as a bank, via a temp file so a failed export never replaces a
+    // good bank. Each quiz is encoded in memory, so one quiz must fit in the heap.
+    static void write(Path file, Collection<QuizApp.Quiz> quizzes) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "bank", ".tmp");
+        try {
+            int[] quizOffsets = new int[quizzes.size()];
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(quizOffsets.length);
+                for (int i = 0; i < quizOffsets.length; i++) out.writeInt(0); // Filled in below
+
+                ByteArrayOutputStream questionBytes = new ByteArrayOutputStream();
+                int q = 0;
+                for (QuizApp.Quiz quiz : quizzes) {
+                    quizOffsets[q++] = out.size();
+                    writeString(out, quiz.code);
+                    writeString(out, quiz.title);
+                    int count = quiz.questions.size();
+                    out.writeInt(count);
+                    int pos = out.size() + 4 * count;
+                    if (pos < 0) throw new IOException("Quiz bank would exceed 2 GB");
+                    questionBytes.reset();
+                    DataOutputStream questionOut = new DataOutputStream(questionBytes); // size() restarts at 0
+                    for (QuizApp.Question question : quiz.questions) {
+                        out.writeInt(pos + questionOut.size());
+                        writeString(questionOut, question.questionText);
+                        for (String option : question.options) writeString(questionOut, option);
+                        questionOut.writeByte(question.correctOptionIndex);
+                    }
+                    questionBytes.writeTo(out);
+                    if (out.size() == Integer.MAX_VALUE) throw new IOException("Quiz bank would exceed 2 GB"); // size() saturates
+                }
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer index = ByteBuffer.allocate(4 * quizOffsets.length);
+                index.asIntBuffer().put(quizOffsets);
+                channel.write(index, 8);
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Export the journaled quizzes (plus any existing bank) as a new bank, or write a
+    // synthetic bank for load testing.
+    // Usage: QuizBank <bank-file>                       export ~/.quizmaster data
+    //        QuizBank <bank-file> <quizzes> <questions>  synthetic bank
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println("Usage: QuizBank <bank-file> [<quizzes> <questions-per-quiz>]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        Map<String, QuizApp.Quiz> quizzes = new HashMap<>();
+        long start = System.nanoTime();
+        if (args.length == 3) {
+            int quizCount = Integer.parseInt(args[1]);
+            int perQuiz = Integer.parseInt(args[2]);
+            for (int i = 0; i < quizCount; i++) {
+                QuizApp.Quiz quiz = new QuizApp.Quiz(String.format("%06d", i), "Practice set " + (i + 1));
+                for (int n = 0; n < perQuiz; n++) {
+                    quiz.questions.add(new QuizApp.Question("Question " + (n + 1) + " of set " + (i + 1) + "?",
+                            "Option A", "Option B", "Option C", "Option D", (i + n) % 4));
+                }
+                quizzes.put(quiz.code, quiz);
+            }
+        } else {
+            if (Files.exists(file) && Files.isSameFile(file, defaultFile())) {
+                // The journal would then add its questions a second time on top of the new bank
+                System.err.println("Export to another file, then replace the bank and clear the journal together.");
+                System.exit(2);
+            }
+            if (Files.exists(defaultFile())) open(defaultFile()).addTo(quizzes);
+            QuizJournal.load(QuizJournal.defaultDirectory(), quizzes, new HashMap<>()); // Read only: the app may be appending
+        }
+        write(file, quizzes.values());
+        System.out.printf("Wrote %d quizzes to %s (%d bytes) in %d ms%n", quizzes.size(), file,
+                Files.size(file), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.SplittableRandom;
+
+// Hands out unused 6-digit quiz codes in constant time, however full the code space is.
+//
+// The free codes sit in one array; a code is taken by picking a random slot and moving
+// the last free code into it, and freed by appending it again. An inverse index (code ->
+// slot, or -1 while in use) lets markUsed() and free() find a code's slot without a
+// search. Codes therefore stay random and unguessable, and no caller ever retries.
+// Both arrays are allocated up front: 8 MB for the million codes.
+final class QuizCodeAllocator {
+
+    static final int CAPACITY = 1_000_000;
+
+    private final int[] free = new int[CAPACITY];   // free[0..freeCount) are unused codes
+    private final int[] slotOf = new int[CAPACITY]; // Slot of each code in 'free', -1 if used
+    private int freeCount = CAPACITY;
+    private final SplittableRandom random = new SplittableRandom();
+
+    QuizCodeAllocator() {
+        for (int code = 0; code < CAPACITY; code++) {
+            free[code] = code;
+            slotOf[code] = code;
+        }
+    }
+
+    // A random unused code, now marked as used
+    synchronized String allocate() {
+        if (freeCount == 0) throw new IllegalStateException("All " + CAPACITY + " quiz codes are in use");
+        int code = free[random.nextInt(freeCount)];
+        take(code);
+        return format(code);
+    }
+
+    // Reserve a code that is already taken elsewhere, e.g. by a saved quiz. Codes that are
+    // not six digits never came from here and are ignored.
+    synchronized void markUsed(String code) {
+        int c = parse(code);
+        if (c >= 0 && slotOf[c] >= 0) take(c);
+    }
+
+    // Make a code available again
+    synchronized void free(String code) {
+        int c = parse(code);
+        if (c < 0 || slotOf[c] >= 0) return; // Not ours, or already free
+        free[freeCount] = c;
+        slotOf[c] = freeCount++;
+    }
+
+    synchronized int usedCount() {
+        return CAPACITY - freeCount;
+    }
+
+    // Fraction of the code space in use, 0..1
+    synchronized double fullness() {
+        return (double) (CAPACITY - freeCount) / CAPACITY;
+    }
+
+    // Swap-remove 'code' from the free array
+    private void take(int code) {
+        int slot = slotOf[code];
+        int last = free[--freeCount];
+        free[slot] = last;
+        slotOf[last] = slot;
+        slotOf[code] = -1;
+    }
+
+    private static String format(int code) {
+        char[] digits = new char[6];
+        for (int i = 5; i >= 0; i--, code /= 10) digits[i] = (char) ('0' + code % 10);
+        return new String(digits);
+    }
+
+    // The code as a number, or -1 if it is not exactly six digits
+    private static int parse(String code) {
+        if (code.length() != 6) return -1;
+        int c = 0;
+        for (int i = 0; i < 6; i++) {
+            char ch = code.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            c = c * 10 + (ch - '0');
+        }
+        return c;
+    }
+}
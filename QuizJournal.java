@@ -0,0 +1,428 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Durable storage for QuizApp: every change is appended to a journal file, and every
+// SNAPSHOT_INTERVAL changes the whole state is written to a snapshot, after which the
+// journal starts over. Startup loads the snapshot and replays the journal records that
+// came after it, so a new question costs one buffered append however big the store is.
+//
+// Appends only go into a buffer; a flusher thread writes and fsyncs whatever has piled
+// up every FLUSH_MILLIS, so many changes share one fsync. close() flushes the rest.
+// Snapshots are written by the flusher too, outside the lock, so appends (from the EDT
+// among others) never wait for the whole state to be rewritten.
+//
+// Journal record: int body length, body (long seq, byte type, fields), int CRC32 of body.
+// A torn or corrupt tail (from a crash mid-write) is cut off on startup. Records over
+// MAX_RECORD would look like one, so they are refused when written (see checkFits).
+// Quizzes from a QuizBank must be in the maps before open(); for those only the questions
+// added on top of the bank are journaled and snapshotted.
+//
+// Replay is idempotent (quizzes and users are only added if missing, questions only if
+// their index is not filled yet), because with concurrent writers a snapshot can already
+// contain a change whose record is appended just after it.
+final class QuizJournal implements Closeable {
+
+    private static final int SNAPSHOT_MAGIC = 0x51534E31; // "QSN1"
+    private static final byte QUIZ_CREATED = 1;
+    private static final byte QUESTION_ADDED = 2;
+    private static final byte USER_SIGNED_UP = 3;
+    private static final int SNAPSHOT_INTERVAL = 10_000; // Records between snapshots
+    private static final long FLUSH_MILLIS = 50;
+    private static final int MAX_RECORD = 1 << 20;
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final Map<String, QuizApp.Quiz> quizzes;
+    private final Map<String, String[]> users;
+    private FileChannel channel; // Replaced when a snapshot starts the journal over
+    private DataOutputStream out;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256); // Reused per record
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+    private long lastSeq;
+    private int recordsSinceSnapshot;
+    private boolean dirty;
+    private boolean snapshotDue; // Set by appends, served by the flusher
+    private volatile boolean closed;
+
+    private QuizJournal(Path dir, Map<String, QuizApp.Quiz> quizzes, Map<String, String[]> users, boolean writable)
+            throws IOException {
+        this.journalFile = dir.resolve("journal.log");
+        this.snapshotFile = dir.resolve("snapshot.bin");
+        this.quizzes = quizzes;
+        this.users = users;
+        if (writable) Files.createDirectories(dir);
+        if (Files.exists(snapshotFile)) readSnapshot();
+        long goodLength = Files.exists(journalFile) ? replayJournal() : 0;
+        if (!writable) {
+            channel = null;
+            out = null;
+            flusher = null;
+            closed = true;
+            return;
+        }
+
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE); // READ: snapshots copy the tail
+        if (channel.size() > goodLength) {
+            System.err.println("Quiz journal: dropping " + (channel.size() - goodLength) + " bytes of torn tail");
+            channel.truncate(goodLength);
+        }
+        channel.position(goodLength);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+        flusher = new Thread(this::flushLoop, "quiz-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Load the stored state into the maps (empty, or holding only banked quizzes) and start
+    // journaling changes to them
+    static QuizJournal open(Path dir, Map<String, QuizApp.Quiz> quizzes, Map<String, String[]> users) throws IOException {
+        return new QuizJournal(dir, quizzes, users, true);
+    }
+
+    // Load the stored state without opening the journal for writing, so another process
+    // (the desktop app) can keep appending to it
+    static void load(Path dir, Map<String, QuizApp.Quiz> quizzes, Map<String, String[]> users) throws IOException {
+        new QuizJournal(dir, quizzes, users, false);
+    }
+
+    // Move the snapshot and journal in 'dir' into a new "damaged-<time>" folder beside them,
+    // so open() can start over without destroying anything; returns that folder
+    static Path moveAside(Path dir) throws IOException {
+        Path aside = Files.createDirectories(dir.resolve("damaged-" + System.currentTimeMillis()));
+        for (String name : new String[]{"snapshot.bin", "journal.log"}) {
+            Path file = dir.resolve(name);
+            if (Files.exists(file)) Files.move(file, aside.resolve(name));
+        }
+        return aside;
+    }
+
+    static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".quizmaster");
+    }
+
+    // --- Recording changes (call after applying the change to the maps) ---
+
+    // Throws IllegalArgumentException if a record holding these strings could not be
+    // replayed; check before applying a change that will be journaled
+    static void checkFits(String... fields) {
+        long bytes = 64; // Sequence number, type, lengths and the like
+        for (String field : fields) bytes += 4 + (long) field.length() * 3; // UTF-8 worst case
+        if (bytes > MAX_RECORD) throw new IllegalArgumentException("Too long to save (limit " + (MAX_RECORD >> 10) + " KB)");
+    }
+
+    static void checkFits(QuizApp.Question question) {
+        checkFits(question.questionText, question.options[0], question.options[1], question.options[2], question.options[3]);
+    }
+
+    synchronized void quizCreated(QuizApp.Quiz quiz) {
+        try {
+            beginRecord(QUIZ_CREATED);
+            writeString(bodyOut, quiz.code);
+            writeString(bodyOut, quiz.title);
+            endRecord();
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    // 'index' is the question's position in its quiz
+    synchronized void questionAdded(String quizCode, int index, QuizApp.Question question) {
+        try {
+            beginRecord(QUESTION_ADDED);
+            writeString(bodyOut, quizCode);
+            bodyOut.writeInt(index);
+            writeQuestion(bodyOut, question);
+            endRecord();
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    synchronized void userSignedUp(String username, String[] userData) {
+        try {
+            beginRecord(USER_SIGNED_UP);
+            writeString(bodyOut, username);
+            writeString(bodyOut, userData[0]);
+            writeString(bodyOut, userData[1]);
+            endRecord();
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    private void beginRecord(byte type) throws IOException {
+        if (closed) throw new IOException("Journal is closed");
+        body.reset();
+        bodyOut.writeLong(++lastSeq);
+        bodyOut.writeByte(type);
+    }
+
+    private void endRecord() throws IOException {
+        if (body.size() > MAX_RECORD) {
+            lastSeq--; // Nothing was written
+            throw new IOException("Record of " + body.size() + " bytes is over the " + MAX_RECORD + " byte limit; not saved");
+        }
+        crc.reset();
+        crc.update(body.toByteArray());
+        out.writeInt(body.size());
+        body.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        dirty = true;
+        if (++recordsSinceSnapshot >= SNAPSHOT_INTERVAL && !snapshotDue) {
+            snapshotDue = true;
+            notifyAll(); // Wake the flusher now rather than at its next tick
+        }
+    }
+
+    private void failed(IOException e) {
+        // The change is still in memory; only its durability is lost
+        System.err.println("Quiz journal write failed: " + e);
+    }
+
+    // --- Flushing ---
+
+    private void flushLoop() {
+        while (true) {
+            boolean snapshot;
+            synchronized (this) {
+                try {
+                    wait(FLUSH_MILLIS); // Releases the lock; close() and due snapshots wake it early
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) return;
+                snapshot = snapshotDue;
+                if (!dirty && !snapshot) continue;
+                try {
+                    out.flush();
+                    dirty = false;
+                } catch (IOException e) {
+                    failed(e);
+                    continue;
+                }
+            }
+            try {
+                channel.force(false); // Outside the lock, so appends carry on meanwhile
+                if (snapshot) snapshot();
+            } catch (IOException e) {
+                if (!closed) failed(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        notifyAll(); // Not interrupt(): that would close the channel under a running force()
+        out.flush();
+        channel.force(false);
+        channel.close();
+    }
+
+    // --- Snapshots ---
+
+    // Runs on the flusher. The state is written outside the lock, labelled with the last
+    // sequence number at the start; changes made while it is written may or may not be in
+    // it, which replay copes with (see the class comment). Then, briefly under the lock,
+    // the journal is replaced by just the records appended since the start.
+    // A crash before the snapshot is moved into place leaves the old snapshot and the full
+    // journal; a crash after it, but before the journal is replaced, leaves old records
+    // that replay skips by sequence number.
+    private void snapshot() throws IOException {
+        long seq;
+        long journalStart;
+        synchronized (this) {
+            if (closed) return;
+            out.flush();
+            seq = lastSeq;
+            journalStart = channel.size();
+            snapshotDue = false;
+            recordsSinceSnapshot = 0;
+        }
+        writeSnapshot(seq);
+        synchronized (this) {
+            if (closed) return;
+            out.flush();
+            Path tmp = Files.createTempFile(journalFile.getParent(), "journal", ".tmp");
+            try {
+                try (FileChannel tail = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    long end = channel.size();
+                    for (long pos = journalStart; pos < end; ) pos += channel.transferTo(pos, end - pos, tail);
+                    tail.force(true);
+                }
+                Files.move(tmp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            channel.close();
+            channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+    }
+
+    // The whole state, via a temp file so a crash never leaves half a snapshot
+    private void writeSnapshot(long seq) throws IOException {
+        Path tmp = Files.createTempFile(snapshotFile.getParent(), "snapshot", ".tmp");
+        try {
+            try (DataOutputStream snap = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                snap.writeInt(SNAPSHOT_MAGIC);
+                snap.writeLong(seq);
+                // Other threads keep adding while this runs, so each count is taken from a
+                // copy that is then written in full
+                List<Map.Entry<String, String[]>> userCopy = new ArrayList<>(users.entrySet());
+                snap.writeInt(userCopy.size());
+                for (Map.Entry<String, String[]> user : userCopy) {
+                    writeString(snap, user.getKey());
+                    writeString(snap, user.getValue()[0]);
+                    writeString(snap, user.getValue()[1]);
+                }
+                List<QuizApp.Quiz> quizCopy = new ArrayList<>(quizzes.values());
+                snap.writeInt(quizCopy.size());
+                for (QuizApp.Quiz quiz : quizCopy) {
+                    writeString(snap, quiz.code);
+                    writeString(snap, quiz.title);
+                    // Banked questions are already on disk; only the ones added since are saved
+                    List<QuizApp.Question> questions = new ArrayList<>(quiz.questions instanceof QuizBank.QuestionList
+                            ? ((QuizBank.QuestionList) quiz.questions).added() : quiz.questions);
+                    snap.writeInt(questions.size());
+                    for (QuizApp.Question question : questions) writeQuestion(snap, question);
+                }
+            }
+            try (FileChannel snapChannel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                snapChannel.force(true);
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a quiz snapshot: " + snapshotFile);
+            lastSeq = in.readLong();
+            int userCount = in.readInt();
+            for (int i = 0; i < userCount; i++) {
+                users.put(readString(in), new String[]{readString(in), readString(in)});
+            }
+            int quizCount = in.readInt();
+            for (int i = 0; i < quizCount; i++) {
+                String code = readString(in);
+                String title = readString(in);
+                QuizApp.Quiz quiz = quizzes.get(code); // Already there if it comes from the bank
+                if (quiz == null) {
+                    quiz = new QuizApp.Quiz(code, title);
+                    quizzes.put(code, quiz);
+                }
+                int questionCount = in.readInt();
+                for (int q = 0; q < questionCount; q++) quiz.questions.add(readQuestion(in));
+            }
+        }
+    }
+
+    // Apply every intact record newer than the snapshot; returns the length of the good
+    // prefix of the journal
+    private long replayJournal() throws IOException {
+        long good = 0;
+        try (InputStream raw = Files.newInputStream(journalFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            while (true) {
+                byte[] record;
+                try {
+                    int length = in.readInt();
+                    if (length < 9 || length > MAX_RECORD) break;
+                    record = new byte[length];
+                    in.readFully(record);
+                    crc.reset();
+                    crc.update(record);
+                    if (in.readInt() != (int) crc.getValue()) break;
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(record)));
+                good += 8 + record.length;
+                recordsSinceSnapshot++;
+            }
+        }
+        return good;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        long seq = in.readLong();
+        byte type = in.readByte();
+        if (seq <= lastSeq) return; // Already in the snapshot
+        lastSeq = seq;
+        switch (type) {
+            case QUIZ_CREATED: {
+                QuizApp.Quiz quiz = new QuizApp.Quiz(readString(in), readString(in));
+                quizzes.putIfAbsent(quiz.code, quiz);
+                break;
+            }
+            case QUESTION_ADDED: {
+                QuizApp.Quiz quiz = quizzes.get(readString(in));
+                int index = in.readInt();
+                QuizApp.Question question = readQuestion(in);
+                if (quiz != null && quiz.questions.size() <= index) quiz.questions.add(question);
+                break;
+            }
+            case USER_SIGNED_UP:
+                users.putIfAbsent(readString(in), new String[]{readString(in), readString(in)});
+                break;
+            default:
+                System.err.println("Quiz journal: skipping unknown record type " + type);
+        }
+    }
+
+    // --- Field encoding ---
+
+    private static void writeQuestion(DataOutputStream out, QuizApp.Question question) throws IOException {
+        writeString(out, question.questionText);
+        for (String option : question.options) writeString(out, option);
+        out.writeByte(question.correctOptionIndex);
+    }
+
+    private static QuizApp.Question readQuestion(DataInputStream in) throws IOException {
+        return new QuizApp.Question(readString(in), readString(in), readString(in), readString(in),
+                readString(in), in.readByte());
+    }
+
+    // Length-prefixed UTF-8 (writeUTF stops at 64 KB)
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_RECORD) throw new IOException("Bad string length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+
+// JList model over the QuizStore's quiz list. Nothing is copied or formatted up front: a
+// row's "Title (Code)" text is built when the list asks for it, which is only for the
+// rows being painted (give the JList a prototype cell value so it does not measure every
+// row). New quizzes arrive as one intervalAdded event each, so the list keeps its
+// selection and scroll position.
+//
+// Only touched on the EDT; the store's listener may fire on any thread and hands over.
+final class QuizListModel extends AbstractListModel<String> {
+
+    static final String PROTOTYPE = "A fairly long quiz title for sizing rows (000000)";
+
+    private final QuizStore store;
+    private int size; // What the list has been told about so far
+
+    QuizListModel(QuizStore store) {
+        this.store = store;
+        this.size = store.quizCount();
+        store.addQuizListener(() -> SwingUtilities.invokeLater(this::catchUp));
+    }
+
+    private void catchUp() {
+        int now = store.quizCount();
+        if (now > size) {
+            int first = size;
+            size = now;
+            fireIntervalAdded(this, first, now - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        String code = store.codeAt(index);
+        QuizApp.Quiz quiz = store.quiz(code);
+        return (quiz != null ? quiz.title : "?") + " (" + code + ")";
+    }
+
+    // The quiz code shown in a row
+    String codeAt(int index) {
+        return store.codeAt(index);
+    }
+}
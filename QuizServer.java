@@ -0,0 +1,495 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Headless HTTP/JSON front end for taking quizzes, for when a whole school sits an exam
+// at once. Built on the JDK's com.sun.net.httpserver; each request runs on its own
+// virtual thread when the JVM has them (Java 21+), otherwise on a fixed pool.
+//
+// Quizzes and users are loaded once at startup from the quiz bank and the journal (read
+// only, so the desktop app can keep editing); sessions and attempts live in memory, and
+// attempts idle for ATTEMPT_IDLE_MINUTES and sessions idle for SESSION_IDLE_MINUTES are
+// dropped.
+//
+//   POST /api/login                     {"username": "...", "password": "..."} -> {"token", "role"}
+//   GET  /api/quizzes/{code}            quiz with its questions, without the answers
+//   POST /api/quizzes/{code}/answers    {"question": 0, "option": 2}
+//   GET  /api/quizzes/{code}/results    answers so far; score and grading once handed in
+//   POST /api/quizzes/{code}/submit     hand the attempt in -> {"score", "rank", "results"}
+//   GET  /api/quizzes/{code}/leaderboard  top scores and score histogram
+//   GET  /api/quizzes/{code}/stats      live answer counts per question and option (teachers;
+//                                       QuizApp shows them when run with -Dquizmaster.server=<url>)
+//
+// Everything but login needs "Authorization: Bearer <token>".
+// Usage: QuizServer [port] [bank-file]
+final class QuizServer {
+
+    private static final long ATTEMPT_IDLE_MINUTES = 120; // Unanswered this long, an attempt is dropped
+    private static final long SESSION_IDLE_MINUTES = 120; // Unused this long, a token stops working
+
+    private final QuizStore store;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AttemptRegistry attempts = new AttemptRegistry();
+    private final SecureRandom tokens = new SecureRandom();
+
+    // One logged-in user
+    private static final class Session {
+        final String username;
+        final String role;
+        volatile long lastActive; // System.nanoTime() of the last request
+
+        Session(String username, String role) {
+            this.username = username;
+            this.role = role;
+            this.lastActive = System.nanoTime();
+        }
+    }
+
+    QuizServer(QuizStore store) {
+        this.store = store;
+    }
+
+    HttpServer start(int port) throws IOException {
+        attempts.startEviction(ATTEMPT_IDLE_MINUTES, TimeUnit.MINUTES)
+                .scheduleWithFixedDelay(this::evictIdleSessions, 1, 1, TimeUnit.MINUTES);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(requestExecutor());
+        server.createContext("/api/login", exchange -> handle(exchange, this::login));
+        server.createContext("/api/quizzes/", exchange -> handle(exchange, this::quizRequest));
+        server.start();
+        return server;
+    }
+
+    // Virtual threads are looked up reflectively so this still compiles and runs on 17
+    static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+            System.err.println("No virtual threads on this JVM, serving requests on " + threads + " threads");
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    // --- Handlers ---
+
+    private interface Handler {
+        Object handle(HttpExchange exchange) throws IOException;
+    }
+
+    // Thrown by handlers to answer with an error status and message
+    private static final class HttpError extends RuntimeException {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        int status = 200;
+        Object body;
+        try {
+            body = handler.handle(exchange);
+        } catch (HttpError e) {
+            status = e.status;
+            body = Map.of("error", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = Map.of("error", e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = Map.of("error", "Internal error");
+            System.err.println("Request " + exchange.getRequestURI() + " failed: " + e);
+        }
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Object login(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "POST");
+        Map<String, Object> request = readJson(exchange);
+        String username = String.valueOf(request.get("username"));
+        String[] userData = store.user(username);
+        if (userData == null || !userData[0].equals(request.get("password"))) {
+            throw new HttpError(401, "Invalid username or password");
+        }
+        byte[] random = new byte[16];
+        tokens.nextBytes(random);
+        StringBuilder token = new StringBuilder(32);
+        for (byte b : random) token.append(String.format("%02x", b));
+        sessions.put(token.toString(), new Session(username, userData[1]));
+        return Map.of("token", token.toString(), "role", userData[1]);
+    }
+
+    // /api/quizzes/{code}[/answers|/results]
+    private Object quizRequest(HttpExchange exchange) throws IOException {
+        Session session = authenticate(exchange);
+        String[] parts = exchange.getRequestURI().getPath().substring("/api/quizzes/".length()).split("/");
+        QuizApp.Quiz quiz = store.quiz(parts[0]);
+        if (quiz == null) throw new HttpError(404, "No quiz with code " + parts[0]);
+        String action = parts.length > 1 ? parts[1] : "";
+        switch (action) {
+            case "":
+                requireMethod(exchange, "GET");
+                return quizJson(quiz);
+            case "answers":
+                requireMethod(exchange, "POST");
+                return submitAnswer(attempts.getOrStart(session.username, quiz), readJson(exchange));
+            case "results":
+                requireMethod(exchange, "GET");
+                return results(session, quiz, attempts.get(session.username, quiz.code));
+            case "submit":
+                requireMethod(exchange, "POST");
+                return submit(session, quiz);
+            case "leaderboard":
+                requireMethod(exchange, "GET");
+                return leaderboardJson(quiz, attempts.leaderboardFor(quiz));
+            case "stats":
+                requireMethod(exchange, "GET");
+                if (!session.role.equals("teacher")) throw new HttpError(403, "Teachers only");
+                return statsJson(quiz, attempts.statsFor(quiz));
+            default:
+                throw new HttpError(404, "Unknown action " + action);
+        }
+    }
+
+    private static Map<String, Object> quizJson(QuizApp.Quiz quiz) {
+        List<QuizApp.Question> questions = quiz.questions;
+        Object[] items = new Object[questions.size()];
+        for (int i = 0; i < items.length; i++) {
+            QuizApp.Question question = questions.get(i);
+            items[i] = Map.of("index", i, "text", question.questionText, "options", question.options);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("code", quiz.code);
+        json.put("title", quiz.title);
+        json.put("questions", items);
+        return json;
+    }
+
+    private static Object submitAnswer(QuizAttempt attempt, Map<String, Object> request) {
+        try {
+            attempt.answer(intField(request, "question"), intField(request, "option"));
+        } catch (IllegalStateException e) {
+            throw new HttpError(409, e.getMessage());
+        }
+        return Map.of("answered", attempt.answeredCount(), "total", attempt.questionCount());
+    }
+
+    private Object submit(Session session, QuizApp.Quiz quiz) {
+        QuizAttempt attempt = attempts.get(session.username, quiz.code);
+        if (attempt == null) throw new HttpError(409, "No attempt in progress on quiz " + quiz.code);
+        int rank = attempts.finish(attempt);
+        if (rank == 0) throw new HttpError(409, "Attempt was already handed in");
+        return Map.of("score", attempt.score(), "total", attempt.questionCount(), "rank", rank,
+                "results", attempts.leaderboardFor(quiz).results());
+    }
+
+    private static Map<String, Object> leaderboardJson(QuizApp.Quiz quiz, Leaderboard leaderboard) {
+        List<Leaderboard.Entry> top = leaderboard.top();
+        Object[] items = new Object[top.size()];
+        for (int i = 0; i < items.length; i++) {
+            Leaderboard.Entry entry = top.get(i);
+            items[i] = Map.of("username", entry.username, "score", entry.score);
+        }
+        long[] histogram = leaderboard.histogram();
+        Object[] counts = new Object[histogram.length];
+        for (int i = 0; i < counts.length; i++) counts[i] = histogram[i];
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("code", quiz.code);
+        json.put("results", leaderboard.results());
+        json.put("top", items);
+        json.put("histogram", counts);
+        return json;
+    }
+
+    private static Map<String, Object> statsJson(QuizApp.Quiz quiz, ItemStats stats) {
+        // Questions nobody has answered yet have no counters; they report zeros
+        long[] counts = Arrays.copyOf(stats.snapshot(), quiz.questions.size() * 4);
+        Object[] items = new Object[quiz.questions.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = Map.of("index", i, "options",
+                    new Object[]{counts[i * 4], counts[i * 4 + 1], counts[i * 4 + 2], counts[i * 4 + 3]});
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("code", quiz.code);
+        json.put("attempts", stats.attempts.sum());
+        json.put("questions", items);
+        return json;
+    }
+
+    // 'attempt' is null if the user has not answered anything (or was idle too long); a
+    // handed-in attempt keeps its answers and score here until it idles out. The score and
+    // the right answers are only shown once the attempt is handed in, or to teachers, so
+    // students cannot probe for them mid-exam.
+    private static Object results(Session session, QuizApp.Quiz quiz, QuizAttempt attempt) {
+        boolean graded = session.role.equals("teacher") || (attempt != null && attempt.isHandedIn());
+        List<QuizApp.Question> questions = quiz.questions;
+        Object[] items = new Object[attempt != null ? attempt.questionCount() : questions.size()];
+        for (int i = 0; i < items.length; i++) {
+            QuizApp.Question question = questions.get(i);
+            int answer = attempt != null ? attempt.answerOf(i) : QuizAttempt.NO_ANSWER;
+            items[i] = graded
+                    ? Map.of("index", i, "answer", answer, "correctOption", question.correctOptionIndex,
+                            "correct", attempt != null && attempt.isCorrect(i))
+                    : Map.of("index", i, "answer", answer);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("code", quiz.code);
+        json.put("username", session.username);
+        json.put("handedIn", attempt != null && attempt.isHandedIn());
+        if (graded) json.put("score", attempt != null ? attempt.score() : 0); // Kept up to date as answers arrive
+        json.put("answered", attempt != null ? attempt.answeredCount() : 0);
+        json.put("total", items.length);
+        json.put("questions", items);
+        return json;
+    }
+
+    private Session authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        // Touched inside computeIfPresent(), so evictIdleSessions() cannot drop it meanwhile
+        Session session = header == null || !header.startsWith("Bearer ") ? null
+                : sessions.computeIfPresent(header.substring("Bearer ".length()).trim(), (token, s) -> {
+                    s.lastActive = System.nanoTime();
+                    return s;
+                });
+        if (session == null) throw new HttpError(401, "Log in first");
+        return session;
+    }
+
+    // Runs on the attempt registry's sweeper thread
+    private void evictIdleSessions() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MINUTES.toNanos(SESSION_IDLE_MINUTES);
+        for (String token : sessions.keySet()) {
+            sessions.computeIfPresent(token, (t, session) -> now - session.lastActive > limit ? null : session);
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) throw new HttpError(405, method + " expected");
+    }
+
+    private static Map<String, Object> readJson(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(64 * 1024);
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static int intField(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        // The parser only makes Longs from whole numbers; fractions and exponents are refused there
+        if (!(value instanceof Long)) throw new HttpError(400, "'" + name + "' must be a whole number");
+        long number = (Long) value;
+        if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) throw new HttpError(400, "'" + name + "' is out of range");
+        return (int) number;
+    }
+
+    // Just enough JSON for this API: objects, arrays, strings, whole numbers, booleans and
+    // null, in and out. Objects parse to Maps, arrays to Lists and numbers to Longs.
+    static final class Json {
+
+        static Map<String, Object> parseObject(String text) {
+            Json parser = new Json(text);
+            Map<String, Object> result = parser.object();
+            if (parser.peek() != 0) throw new IllegalArgumentException("Trailing characters in JSON");
+            return result;
+        }
+
+        private static final int MAX_DEPTH = 32;
+
+        private final String text;
+        private int pos;
+        private int depth;
+
+        private Json(String text) {
+            this.text = text;
+        }
+
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private boolean consume(char c) {
+            if (peek() != c) return false;
+            pos++;
+            return true;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> result = new HashMap<>();
+            expect('{');
+            if (peek() != '}') {
+                do {
+                    String key = string();
+                    expect(':');
+                    result.put(key, value());
+                } while (consume(','));
+            }
+            expect('}');
+            return result;
+        }
+
+        private List<Object> array() {
+            List<Object> result = new ArrayList<>();
+            expect('[');
+            if (peek() != ']') {
+                do {
+                    result.add(value());
+                } while (consume(','));
+            }
+            expect(']');
+            return result;
+        }
+
+        private Object value() {
+            char c = peek();
+            if (c != '{' && c != '[') return scalar();
+            // Bounded so a hostile body cannot recurse the parser into a StackOverflowError
+            if (++depth > MAX_DEPTH) throw new IllegalArgumentException("JSON nested too deeply");
+            Object result = c == '{' ? object() : array();
+            depth--;
+            return result;
+        }
+
+        private Object scalar() {
+            char c = peek();
+            if (c == '"') return string();
+            if (text.startsWith("true", pos)) { pos += 4; return Boolean.TRUE; }
+            if (text.startsWith("false", pos)) { pos += 5; return Boolean.FALSE; }
+            if (text.startsWith("null", pos)) { pos += 4; return null; }
+            int start = pos;
+            if (c == '-') pos++;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+            if (pos == start || (pos == start + 1 && c == '-')) throw new IllegalArgumentException("Bad value at " + start);
+            return Long.parseLong(text.substring(start, pos));
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) break;
+                char e = text.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw new IllegalArgumentException("Bad \\u escape");
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e); // \" \\ \/
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+
+        static String write(Object value) {
+            StringBuilder sb = new StringBuilder();
+            write(sb, value);
+            return sb.toString();
+        }
+
+        private static void write(StringBuilder sb, Object value) {
+            if (value == null) {
+                sb.append("null");
+            } else if (value instanceof String) {
+                quote(sb, (String) value);
+            } else if (value instanceof Number || value instanceof Boolean) {
+                sb.append(value);
+            } else if (value instanceof Map) {
+                sb.append('{');
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    if (!first) sb.append(',');
+                    first = false;
+                    quote(sb, String.valueOf(entry.getKey()));
+                    sb.append(':');
+                    write(sb, entry.getValue());
+                }
+                sb.append('}');
+            } else if (value instanceof Object[]) {
+                sb.append('[');
+                Object[] items = (Object[]) value;
+                for (int i = 0; i < items.length; i++) {
+                    if (i > 0) sb.append(',');
+                    write(sb, items[i]);
+                }
+                sb.append(']');
+            } else {
+                throw new IllegalArgumentException("Cannot write " + value.getClass() + " as JSON");
+            }
+        }
+
+        private static void quote(StringBuilder sb, String s) {
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                        else sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Path bankFile = args.length > 1 ? Paths.get(args[1]) : QuizBank.defaultFile();
+        QuizStore store = new QuizStore();
+        if (Files.exists(bankFile)) QuizBank.open(bankFile).addTo(store.quizMap());
+        QuizJournal.load(QuizJournal.defaultDirectory(), store.quizMap(), store.userMap());
+
+        new QuizServer(store).start(port);
+        System.out.println("Serving " + store.quizMap().size() + " quizzes and " + store.userMap().size()
+                + " users on port " + port);
+    }
+}
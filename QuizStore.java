@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Thread-safe home of all quizzes and users, shared by the Swing UI and QuizServer.
+//
+// Reads never lock: both maps are ConcurrentHashMaps and question lists are
+// copy-on-write, so a student fetching a quiz never waits on a teacher editing one.
+// Writes are lock-free too (putIfAbsent) except adding a question, which locks only its
+// own quiz so that list order and journal order agree. Every change is journaled when a
+// journal is attached.
+//
+// Quiz codes are also kept in a list in creation order (loaded quizzes first, by code),
+// so a UI can show quiz i without copying the map; listeners hear about every new quiz.
+final class QuizStore {
+
+    private final Map<String, QuizApp.Quiz> quizzes = new ConcurrentHashMap<>();
+    private final Map<String, String[]> users = new ConcurrentHashMap<>(); // username -> [password, role]
+    private final QuizCodeAllocator codes = new QuizCodeAllocator();
+    private volatile QuizJournal journal;
+
+    // Append-only; entries below orderSize never change, so readers need no lock
+    private final Object orderLock = new Object();
+    private volatile String[] order = new String[64];
+    private volatile int orderSize;
+    private final List<Runnable> quizListeners = new CopyOnWriteArrayList<>();
+
+    // --- Reads ---
+
+    QuizApp.Quiz quiz(String code) {
+        return quizzes.get(code);
+    }
+
+    Collection<QuizApp.Quiz> quizzes() {
+        return quizzes.values();
+    }
+
+    int quizCount() {
+        return orderSize;
+    }
+
+    // Code of the i-th quiz in creation order
+    String codeAt(int index) {
+        if (index < 0 || index >= orderSize) throw new IndexOutOfBoundsException("Quiz " + index);
+        return order[index];
+    }
+
+    // Called, on the creating thread, after each new quiz is in quizCount()
+    void addQuizListener(Runnable listener) {
+        quizListeners.add(listener);
+    }
+
+    // [password, role], or null
+    String[] user(String username) {
+        return users.get(username);
+    }
+
+    // --- Writes ---
+
+    // Create a quiz under a fresh code. Throws IllegalStateException when all codes are taken.
+    QuizApp.Quiz createQuiz(String title) {
+        QuizJournal.checkFits(title);
+        while (true) {
+            QuizApp.Quiz quiz = new QuizApp.Quiz(codes.allocate(), title);
+            // Locked before it is visible, so nobody can journal a question for it before
+            // the quiz itself is journaled
+            synchronized (quiz) {
+                if (quizzes.putIfAbsent(quiz.code, quiz) == null) {
+                    QuizJournal j = journal;
+                    if (j != null) j.quizCreated(quiz);
+                    appendCodes(List.of(quiz.code));
+                    for (Runnable listener : quizListeners) listener.run();
+                    return quiz;
+                }
+            }
+            // Only if a quiz was put in the map behind the allocator's back; that code is
+            // now used, so the next one will do
+        }
+    }
+
+    // Throws IllegalArgumentException if the question is too big to journal
+    void addQuestion(QuizApp.Quiz quiz, QuizApp.Question question) {
+        QuizJournal.checkFits(question);
+        synchronized (quiz) {
+            int index = quiz.questions.size();
+            quiz.questions.add(question);
+            QuizJournal j = journal;
+            if (j != null) j.questionAdded(quiz.code, index, question);
+        }
+    }
+
+    // False if the username is taken
+    boolean addUser(String username, String password, String role) {
+        QuizJournal.checkFits(username, password, role);
+        String[] userData = {password, role};
+        if (users.putIfAbsent(username, userData) != null) return false;
+        QuizJournal j = journal;
+        if (j != null) j.userSignedUp(username, userData);
+        return true;
+    }
+
+    // --- Loading ---
+
+    // The raw maps, for QuizBank and QuizJournal to load into before the store is shared
+    Map<String, QuizApp.Quiz> quizMap() {
+        return quizzes;
+    }
+
+    Map<String, String[]> userMap() {
+        return users;
+    }
+
+    // Index the quizzes loaded through quizMap(): reserve their codes with the allocator
+    // and list them, sorted by code. Call once, after loading.
+    void indexLoadedQuizzes() {
+        List<String> loaded = new ArrayList<>(quizzes.keySet());
+        loaded.sort(null);
+        for (String code : loaded) codes.markUsed(code);
+        appendCodes(loaded);
+    }
+
+    private void appendCodes(List<String> added) {
+        synchronized (orderLock) {
+            String[] o = order;
+            int size = orderSize;
+            if (size + added.size() > o.length) o = Arrays.copyOf(o, Math.max(o.length * 2, size + added.size()));
+            for (String code : added) o[size++] = code;
+            order = o;
+            orderSize = size; // Publishes the entries written above
+        }
+    }
+
+    QuizCodeAllocator codes() {
+        return codes;
+    }
+
+    void setJournal(QuizJournal journal) {
+        this.journal = journal;
+    }
+}
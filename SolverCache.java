@@ -0,0 +1,154 @@
+// Bounded transposition cache of solved 4x4 boards: packed board -> exact distance and
+// the first move of an optimal solution. Every board along a solved path is stored, so a
+// later hint anywhere on that path, or a whole auto-solve, is a few array reads.
+//
+// Set-associative with CLOCK eviction: a board hashes to one set of WAYS slots, and when
+// the set is full a per-set hand sweeps it, clearing reference bits until it finds a slot
+// nobody has read since the last sweep. Everything lives in primitive arrays; 0 marks an
+// empty slot because no real board packs to 0.
+final class SolverCache {
+
+    static final int MISS = -1;
+    private static final int WAYS = 8;
+
+    private final long[] keys;
+    private final byte[] distances;
+    private final byte[] moves;
+    private final boolean[] referenced;
+    private final byte[] hands; // CLOCK hand per set
+    private final int setMask;
+    private int size;
+    private long hits;
+    private long misses;
+
+    // 'capacity' is rounded up to a power of two and to at least one full set
+    SolverCache(int capacity) {
+        int sets = Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS - 1)) << 1;
+        keys = new long[sets * WAYS];
+        distances = new byte[sets * WAYS];
+        moves = new byte[sets * WAYS];
+        referenced = new boolean[sets * WAYS];
+        hands = new byte[sets];
+        setMask = sets - 1;
+    }
+
+    // Entry for a board, or MISS; unpack it with distanceOf/moveOf
+    synchronized int lookup(long tiles) {
+        int entry = probe(tiles);
+        if (entry == MISS) misses++;
+        else hits++;
+        return entry;
+    }
+
+    // lookup() without touching the hit and miss counts
+    private int probe(long tiles) {
+        int slot = find(tiles);
+        if (slot < 0) return MISS;
+        referenced[slot] = true;
+        return (distances[slot] & 0xFF) << 8 | (moves[slot] & 0xFF);
+    }
+
+    static int distanceOf(int entry) {
+        return entry >>> 8;
+    }
+
+    static int moveOf(int entry) {
+        return (byte) entry; // NO_MOVE is stored as -1
+    }
+
+    synchronized void put(long tiles, int distance, int move) {
+        int slot = find(tiles);
+        if (slot < 0) {
+            int set = set(tiles);
+            int base = set * WAYS;
+            for (int way = 0; way < WAYS && slot < 0; way++) {
+                if (keys[base + way] == 0) slot = base + way;
+            }
+            if (slot < 0) {
+                int hand = hands[set];
+                while (referenced[base + hand]) {
+                    referenced[base + hand] = false; // Second chance
+                    hand = (hand + 1) % WAYS;
+                }
+                slot = base + hand;
+                hands[set] = (byte) ((hand + 1) % WAYS);
+            } else {
+                size++;
+            }
+            keys[slot] = tiles;
+        }
+        distances[slot] = (byte) distance;
+        moves[slot] = (byte) move;
+        referenced[slot] = false;
+    }
+
+    // Record every board along an optimal solution from 'start'
+    void putPath(long start, int[] solution) {
+        long tiles = start;
+        int blank = PuzzleBoard.findBlank(tiles);
+        for (int i = 0; i < solution.length; i++) {
+            put(tiles, solution.length - i, solution[i]);
+            int target = blank + PuzzleBoard.DELTA[solution[i]];
+            tiles = PuzzleBoard.slide(tiles, blank, target);
+            blank = target;
+        }
+        put(tiles, 0, PuzzleBoard.NO_MOVE);
+    }
+
+    // Follow cached next moves from 'start' to the goal; null if any board on the way has
+    // been evicted or was never solved. Counts as one hit or one miss however long the
+    // path is, so hits() and misses() count requests rather than boards.
+    synchronized int[] path(long start) {
+        int[] solution = followPath(start);
+        if (solution == null) misses++;
+        else hits++;
+        return solution;
+    }
+
+    private int[] followPath(long start) {
+        int entry = probe(start);
+        if (entry == MISS) return null;
+        int[] solution = new int[distanceOf(entry)];
+        long tiles = start;
+        int blank = PuzzleBoard.findBlank(tiles);
+        for (int i = 0; i < solution.length; i++) {
+            if (entry == MISS || distanceOf(entry) != solution.length - i) return null;
+            int move = moveOf(entry);
+            solution[i] = move;
+            int target = blank + PuzzleBoard.DELTA[move];
+            tiles = PuzzleBoard.slide(tiles, blank, target);
+            blank = target;
+            if (i + 1 < solution.length) entry = probe(tiles);
+        }
+        return solution;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    private int find(long tiles) {
+        int base = set(tiles) * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            if (keys[base + way] == tiles) return base + way;
+        }
+        return -1;
+    }
+
+    private int set(long tiles) {
+        long h = tiles * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & setMask;
+    }
+}
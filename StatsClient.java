@@ -0,0 +1,108 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+// Reads a quiz's live answer counts from a QuizServer's /stats endpoint for the teacher's
+// statistics panel in the desktop app. Exams are taken through the server, so its
+// AttemptRegistry is the one that sees the answers; the desktop's own registry only
+// knows attempts taken in that window.
+//
+// Logs in with the teacher's own credentials on first use, and again when the server has
+// dropped the session. fetch() blocks on the network; call it off the EDT.
+final class StatsClient {
+
+    // Set to the server's base URL, e.g. -Dquizmaster.server=http://exams.local:8080
+    static final String SERVER_PROPERTY = "quizmaster.server";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    // One quiz's counts as the server reported them
+    static final class Snapshot {
+        final long attempts;
+        final long[] counts; // [question * 4 + option]
+
+        Snapshot(long attempts, long[] counts) {
+            this.attempts = attempts;
+            this.counts = counts;
+        }
+    }
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    private final URI server;
+    private final String username;
+    private final String password;
+    private volatile String token; // Null until logged in
+
+    StatsClient(URI server, String username, String password) {
+        this.server = server;
+        this.username = username;
+        this.password = password;
+    }
+
+    URI server() {
+        return server;
+    }
+
+    Snapshot fetch(String quizCode) throws IOException {
+        if (token == null) login();
+        HttpResponse<String> response = send(HttpRequest.newBuilder(server.resolve("/api/quizzes/" + quizCode + "/stats")));
+        if (response.statusCode() == 401) { // Session expired on the server
+            login();
+            response = send(HttpRequest.newBuilder(server.resolve("/api/quizzes/" + quizCode + "/stats")));
+        }
+        Map<String, Object> json = parse(response);
+        try {
+            List<?> questions = (List<?>) json.get("questions");
+            long[] counts = new long[questions.size() * 4];
+            for (int i = 0; i < questions.size(); i++) {
+                List<?> options = (List<?>) ((Map<?, ?>) questions.get(i)).get("options");
+                for (int option = 0; option < 4; option++) counts[i * 4 + option] = (Long) options.get(option);
+            }
+            return new Snapshot((Long) json.get("attempts"), counts);
+        } catch (RuntimeException e) { // Missing or mistyped fields
+            throw new IOException("Unexpected statistics from " + server + ": " + e);
+        }
+    }
+
+    private void login() throws IOException {
+        token = null;
+        String body = QuizServer.Json.write(Map.of("username", username, "password", password));
+        Map<String, Object> json = parse(send(HttpRequest.newBuilder(server.resolve("/api/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))));
+        if (!(json.get("token") instanceof String)) throw new IOException("No token from " + server);
+        token = (String) json.get("token");
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException {
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        try {
+            return http.send(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted talking to " + server);
+        } catch (IOException e) { // Often without a message, e.g. a refused connection
+            throw new IOException("Cannot reach " + server + " (" + e + ")", e);
+        }
+    }
+
+    // The response body as an object; a non-200 status becomes an IOException with the
+    // server's error message
+    private Map<String, Object> parse(HttpResponse<String> response) throws IOException {
+        Map<String, Object> json;
+        try {
+            json = QuizServer.Json.parseObject(response.body());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a quiz server response from " + server + " (HTTP " + response.statusCode() + ")");
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException(server + " said: " + json.getOrDefault("error", "HTTP " + response.statusCode()));
+        }
+        return json;
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.Random;
+
+// Headless model of an N x N sliding puzzle for any N from 2 to 100.
+// Cells are numbered row by row; cells[cell] holds the tile number (1..N*N-1) or 0 for
+// the blank. The blank's cell, row and column are kept and stepped on every move, so
+// legality checks need no division and moves allocate nothing.
+// The number of misplaced tiles and the Manhattan distance sum are updated per move, so
+// the win check is one comparison however large the board is.
+// PuzzleBoard is the packed 4x4 form the solvers use; packed()/load() convert.
+final class TileGrid {
+
+    static final int MIN_SIZE = 2;
+    static final int MAX_SIZE = 100;
+
+    // Same direction constants as PuzzleBoard: the direction the blank moves in
+    static final int UP = PuzzleBoard.UP;
+    static final int DOWN = PuzzleBoard.DOWN;
+    static final int LEFT = PuzzleBoard.LEFT;
+    static final int RIGHT = PuzzleBoard.RIGHT;
+    static final int NO_MOVE = PuzzleBoard.NO_MOVE;
+
+    private final int size;
+    private final int[] cells;
+    private int blank;
+    private int blankRow;
+    private int blankCol;
+    private int misplaced; // Tiles (not the blank) away from their home cell
+    private int manhattan; // Sum of the tiles' distances from their home cells
+
+    TileGrid(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Grid size must be " + MIN_SIZE + ".." + MAX_SIZE + ", got " + size);
+        }
+        this.size = size;
+        this.cells = new int[size * size];
+        reset();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int cellCount() {
+        return cells.length;
+    }
+
+    int tileAt(int cell) {
+        return cells[cell];
+    }
+
+    int blankCell() {
+        return blank;
+    }
+
+    int misplacedCount() {
+        return misplaced;
+    }
+
+    int manhattanDistance() {
+        return manhattan;
+    }
+
+    void reset() {
+        for (int cell = 0; cell < cells.length - 1; cell++) {
+            cells[cell] = cell + 1;
+        }
+        cells[cells.length - 1] = 0;
+        setBlank(cells.length - 1);
+        misplaced = 0;
+        manhattan = 0;
+    }
+
+    // Uniformly random solvable layout in one O(N^2) pass with no allocation.
+    // Fisher-Yates over every cell (blank included) while counting the swaps, which gives
+    // the permutation parity for free. A layout is solvable iff that parity matches the
+    // parity of the blank's Manhattan distance from its home cell; if it does not, one
+    // swap of two ordinary tiles fixes it.
+    void shuffle(Random random) {
+        do {
+            reset();
+            boolean oddPermutation = false;
+            for (int i = cells.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                if (j == i) continue;
+                int tile = cells[i];
+                cells[i] = cells[j];
+                cells[j] = tile;
+                if (cells[i] == 0) blank = i;
+                else if (cells[j] == 0) blank = j;
+                oddPermutation = !oddPermutation;
+            }
+            int blankDistance = (size - 1 - blank / size) + (size - 1 - blank % size);
+            if (oddPermutation != ((blankDistance & 1) == 1)) {
+                int a = blank < 2 ? 2 : 0; // Two cells that are not the blank
+                int tile = cells[a];
+                cells[a] = cells[a + 1];
+                cells[a + 1] = tile;
+            }
+            reindex();
+        } while (isSolved()); // Only likely on tiny boards
+    }
+
+    // Same rule as PuzzleBoard.isSolvable and shuffle(): the permutation's parity (blank
+    // counted as the last tile) must match the parity of the blank's distance from its home
+    // cell. Counted from the permutation's cycles, so O(N^2) even for a 100x100 board.
+    boolean isSolvable() {
+        boolean[] seen = new boolean[cells.length];
+        int cycles = 0;
+        for (int start = 0; start < cells.length; start++) {
+            if (seen[start]) continue;
+            cycles++;
+            for (int cell = start; !seen[cell]; ) {
+                seen[cell] = true;
+                int tile = cells[cell];
+                cell = tile == 0 ? cells.length - 1 : tile - 1; // Home cell of what sits here
+            }
+        }
+        boolean oddPermutation = ((cells.length - cycles) & 1) == 1;
+        int blankDistance = (size - 1 - blankRow) + (size - 1 - blankCol);
+        return oddPermutation == ((blankDistance & 1) == 1);
+    }
+
+    boolean isSolved() {
+        return misplaced == 0;
+    }
+
+    boolean canMove(int dir) {
+        switch (dir) {
+            case UP: return blankRow > 0;
+            case DOWN: return blankRow < size - 1;
+            case LEFT: return blankCol > 0;
+            case RIGHT: return blankCol < size - 1;
+            default: return false;
+        }
+    }
+
+    // Move the blank one step; returns false (and leaves the grid alone) if illegal
+    boolean move(int dir) {
+        if (!canMove(dir)) return false;
+        int target = blank + offset(dir);
+        int tile = cells[target];
+        int home = tile - 1;
+        if (target == home) misplaced++;
+        else if (blank == home) misplaced--;
+        // The tile moves one step along one axis, so only that axis' distance changes
+        if (dir == UP || dir == DOWN) {
+            int homeRow = home / size;
+            int targetRow = dir == UP ? blankRow - 1 : blankRow + 1;
+            manhattan += Math.abs(blankRow - homeRow) - Math.abs(targetRow - homeRow);
+        } else {
+            int homeCol = home % size;
+            int targetCol = dir == LEFT ? blankCol - 1 : blankCol + 1;
+            manhattan += Math.abs(blankCol - homeCol) - Math.abs(targetCol - homeCol);
+        }
+        cells[blank] = tile;
+        cells[target] = 0;
+        blank = target;
+        switch (dir) {
+            case UP: blankRow--; break;
+            case DOWN: blankRow++; break;
+            case LEFT: blankCol--; break;
+            default: blankCol++;
+        }
+        return true;
+    }
+
+    // Slide the tile at 'cell' into the blank if they are adjacent
+    boolean slideTile(int cell) {
+        int dir = directionTo(cell);
+        return dir != NO_MOVE && move(dir);
+    }
+
+    // Direction the blank has to move to reach 'cell', or NO_MOVE if not adjacent
+    int directionTo(int cell) {
+        if (cell < 0 || cell >= cells.length) return NO_MOVE;
+        int diff = cell - blank;
+        if (diff == -size) return UP;
+        if (diff == size) return DOWN;
+        if (diff == -1 && blankCol > 0) return LEFT;
+        if (diff == 1 && blankCol < size - 1) return RIGHT;
+        return NO_MOVE;
+    }
+
+    int offset(int dir) {
+        switch (dir) {
+            case UP: return -size;
+            case DOWN: return size;
+            case LEFT: return -1;
+            case RIGHT: return 1;
+            default: throw new IllegalArgumentException("Unknown direction " + dir);
+        }
+    }
+
+    int[] copyCells() {
+        return cells.clone();
+    }
+
+    // Replace the layout with 'layout' (same size, a permutation of 0..N*N-1)
+    void load(int[] layout) {
+        if (layout.length != cells.length) {
+            throw new IllegalArgumentException("Expected " + cells.length + " cells, got " + layout.length);
+        }
+        boolean[] seen = new boolean[cells.length];
+        for (int tile : layout) {
+            if (tile < 0 || tile >= cells.length || seen[tile]) {
+                throw new IllegalArgumentException("Not a layout of tiles 0.." + (cells.length - 1));
+            }
+            seen[tile] = true;
+        }
+        System.arraycopy(layout, 0, cells, 0, cells.length);
+        reindex();
+    }
+
+    // --- Conversion to/from the packed 4x4 solver form ---
+
+    long packed() {
+        if (size != PuzzleBoard.SIZE) throw new IllegalStateException("Only 4x4 grids can be packed");
+        return PuzzleBoard.pack(cells);
+    }
+
+    void load(long tiles) {
+        if (size != PuzzleBoard.SIZE) throw new IllegalStateException("Only 4x4 grids can be packed");
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = PuzzleBoard.tileAt(tiles, cell);
+        }
+        reindex();
+    }
+
+    private void setBlank(int cell) {
+        blank = cell;
+        blankRow = cell / size;
+        blankCol = cell - blankRow * size;
+    }
+
+    // Find the blank and rebuild the distance counters after cells[] was rewritten
+    // wholesale
+    private void reindex() {
+        misplaced = 0;
+        manhattan = 0;
+        int blankCell = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            int tile = cells[cell];
+            if (tile == 0) blankCell = cell;
+            if (tile == 0 || tile == cell + 1) continue;
+            misplaced++;
+            manhattan += Math.abs(cell / size - (tile - 1) / size) + Math.abs(cell % size - (tile - 1) % size);
+        }
+        setBlank(blankCell);
+    }
+}